@@ -5,9 +5,8 @@ import ch.epfl.rechor.journey.Stop;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * * @author Valentin Walendy (393413)
@@ -16,7 +15,24 @@ import java.time.temporal.ChronoField;
  * aux arrêts, aux horaires, et aux durées dans un format adapté au contexte français.
  */
 public final class FormatterFr {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Durées pré-calculées : jusqu'à deux jours, l'étendue des heures d'un profil
+    private static final int TABULATED_DURATIONS = 2 * MINUTES_PER_DAY;
+    private static final int MAX_ROUTE_DESTINATIONS = 1 << 14;
+
+    private static final String[] TIMES = new String[MINUTES_PER_DAY];
+    private static final String[] DURATIONS = new String[TABULATED_DURATIONS];
+    private static final Map<RouteDestination, String> ROUTE_DESTINATIONS = new ConcurrentHashMap<>();
+
+    static {
+        for (int m = 0; m < MINUTES_PER_DAY; m++)
+            TIMES[m] = (m / 60) + "h" + (m % 60 < 10 ? "0" : "") + (m % 60);
+        for (int m = 0; m < TABULATED_DURATIONS; m++)
+            DURATIONS[m] = computeDuration(m);
+    }
 
+    /** Clé de la table des lignes et destinations déjà formatées. */
+    private record RouteDestination(String route, String destination) {}
 
     private FormatterFr() {}
 
@@ -30,6 +46,12 @@ public final class FormatterFr {
      */
     public static String formatDuration (Duration duration){
         long minutes= duration.toMinutes();
+        return 0 <= minutes && minutes < TABULATED_DURATIONS
+                ? DURATIONS[(int) minutes]
+                : computeDuration(minutes);
+    }
+
+    private static String computeDuration(long minutes) {
         long hours= minutes / 60;
         long remainingMinutes= minutes % 60;
 
@@ -47,13 +69,7 @@ public final class FormatterFr {
      * @return La chaîne formatée représentant l'heure et les minutes.
      */
     public static String formatTime(LocalDateTime dateTime){
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendValue(ChronoField.HOUR_OF_DAY)
-                .appendLiteral("h")
-                .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
-                .toFormatter();
-
-        return formatter.format(dateTime);
+        return TIMES[dateTime.getHour() * 60 + dateTime.getMinute()];
     }
 
     /**
@@ -139,6 +155,10 @@ public final class FormatterFr {
         String line = transportLeg.route();
         String destination = transportLeg.destination();
 
-        return line + " Direction " + destination;
+        // Les étapes d'une même course partagent les chaînes de l'horaire : le nombre de
+        // clés distinctes reste borné, la table n'est vidée que par précaution.
+        if (ROUTE_DESTINATIONS.size() >= MAX_ROUTE_DESTINATIONS) ROUTE_DESTINATIONS.clear();
+        return ROUTE_DESTINATIONS.computeIfAbsent(new RouteDestination(line, destination),
+                k -> k.route() + " Direction " + k.destination());
     }
 }
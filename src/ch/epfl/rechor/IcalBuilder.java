@@ -1,11 +1,8 @@
 package ch.epfl.rechor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -26,16 +23,16 @@ public final class IcalBuilder {
     }
 
     private final StringBuilder icalBuilder;
-    private final List<Component> components;
+    private final IcalWriter writer;
 
     /** Initialise un constructeur iCalendar vide. */
     public IcalBuilder() {
         this.icalBuilder = new StringBuilder();
-        this.components = new ArrayList<>();
+        this.writer = new IcalWriter(icalBuilder);
     }
 
     /**
-     * Ajoute un champ iCalendar.
+     * Ajoute un champ iCalendar, en pliant la ligne si son encodage dépasse 75 octets.
      *
      * @param name  Nom du champ.
      * @param value Valeur du champ.
@@ -45,21 +42,11 @@ public final class IcalBuilder {
     public IcalBuilder add(Name name, String value) {
         Objects.requireNonNull(name);
         Objects.requireNonNull(value);
-
-        String line = name + ":" + value;
-        int maxChar = 75;
-
-        if (line.length() <= maxChar) {
-            icalBuilder.append(line).append("\r\n");
-        } else {
-            icalBuilder.append(line, 0, maxChar).append("\r\n");
-            int pos = maxChar;
-
-            while (pos < line.length()) {
-                int end = Math.min(pos + maxChar-1, line.length());
-                icalBuilder.append(" ").append(line, pos, end).append("\r\n");
-                pos = end;
-            }
+        try {
+            writer.add(name, value);
+        } catch (IOException e) {
+            // Impossible, un StringBuilder ne lève jamais d'IOException
+            throw new UncheckedIOException(e);
         }
         return this;
     }
@@ -72,16 +59,12 @@ public final class IcalBuilder {
      * @return L'instance actuelle d'{@code IcalBuilder}.
      */
     public IcalBuilder add(Name name, LocalDateTime dateTime) {
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendValue(ChronoField.YEAR, 4)
-                .appendValue(ChronoField.MONTH_OF_YEAR, 2)
-                .appendValue(ChronoField.DAY_OF_MONTH, 2)
-                .appendLiteral('T')
-                .appendValue(ChronoField.HOUR_OF_DAY, 2)
-                .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
-                .appendValue(java.time.temporal.ChronoField.SECOND_OF_MINUTE, 2)
-                .toFormatter();
-        return add(name, formatter.format(dateTime));
+        try {
+            writer.add(name, dateTime);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
     }
 
     /**
@@ -91,8 +74,11 @@ public final class IcalBuilder {
      * @return L'instance actuelle d'{@code IcalBuilder}.
      */
     public IcalBuilder begin(Component component) {
-        icalBuilder.append(Name.BEGIN).append(":").append(component).append("\r\n");
-        components.add(component);
+        try {
+            writer.begin(component);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return this;
     }
 
@@ -103,11 +89,11 @@ public final class IcalBuilder {
      * @throws IllegalArgumentException Si aucun composant n'est ouvert.
      */
     public IcalBuilder end() {
-        if (components.isEmpty()) {
-            throw new IllegalArgumentException();
+        try {
+            writer.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        Component lastComponent = components.remove(components.size() - 1);
-        icalBuilder.append(Name.END).append(":").append(lastComponent).append("\r\n");
         return this;
     }
 
@@ -118,7 +104,7 @@ public final class IcalBuilder {
      * @throws IllegalArgumentException Si des composants n'ont pas été fermés.
      */
     public String build() {
-        if (!components.isEmpty()) {
+        if (!writer.isComplete()) {
             throw new IllegalArgumentException();
         }
         return icalBuilder.toString();
@@ -0,0 +1,131 @@
+package ch.epfl.rechor;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Écrivain iCalendar (ICS), écrivant les composants et les champs au fur et à mesure dans une
+ * destination, p. ex. un {@link java.io.Writer}, sans construire le fichier en mémoire.
+ *
+ * Les lignes dont l'encodage UTF-8 dépasse 75 octets sont pliées conformément à la RFC 5545 :
+ * chaque ligne de continuation commence par une espace, et aucun caractère n'est coupé.
+ */
+public final class IcalWriter {
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final String CRLF = "\r\n";
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = new DateTimeFormatterBuilder()
+            .appendValue(ChronoField.YEAR, 4)
+            .appendValue(ChronoField.MONTH_OF_YEAR, 2)
+            .appendValue(ChronoField.DAY_OF_MONTH, 2)
+            .appendLiteral('T')
+            .appendValue(ChronoField.HOUR_OF_DAY, 2)
+            .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+            .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+            .toFormatter();
+
+    private final Appendable out;
+    private final List<IcalBuilder.Component> components = new ArrayList<>();
+
+    /**
+     * Construit un écrivain iCalendar écrivant dans la destination donnée.
+     *
+     * @param out la destination
+     */
+    public IcalWriter(Appendable out) {
+        this.out = Objects.requireNonNull(out);
+    }
+
+    /**
+     * Écrit un champ iCalendar, en pliant la ligne si nécessaire.
+     *
+     * @param name  le nom du champ
+     * @param value la valeur du champ
+     * @return cet écrivain
+     * @throws IOException          en cas d'erreur d'écriture
+     * @throws NullPointerException si le nom ou la valeur est null
+     */
+    public IcalWriter add(IcalBuilder.Name name, String value) throws IOException {
+        Objects.requireNonNull(value);
+        String n = name.name();
+        out.append(n).append(':');
+        int octets = n.length() + 1;
+
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = value.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            int length = utf8Length(codePoint);
+            if (octets + length > MAX_LINE_OCTETS) {
+                out.append(CRLF).append(' ');
+                octets = 1;
+            }
+            out.append(value, i, i + charCount);
+            octets += length;
+            i += charCount;
+        }
+        out.append(CRLF);
+        return this;
+    }
+
+    /**
+     * Écrit un champ iCalendar dont la valeur est une date et heure.
+     *
+     * @param name     le nom du champ
+     * @param dateTime la date et heure
+     * @return cet écrivain
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public IcalWriter add(IcalBuilder.Name name, LocalDateTime dateTime) throws IOException {
+        return add(name, DATE_TIME_FORMATTER.format(dateTime));
+    }
+
+    /**
+     * Commence un composant iCalendar.
+     *
+     * @param component le composant
+     * @return cet écrivain
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public IcalWriter begin(IcalBuilder.Component component) throws IOException {
+        out.append(IcalBuilder.Name.BEGIN.name()).append(':').append(component.name()).append(CRLF);
+        components.add(component);
+        return this;
+    }
+
+    /**
+     * Termine le dernier composant iCalendar commencé.
+     *
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si aucun composant n'est commencé
+     */
+    public IcalWriter end() throws IOException {
+        Preconditions.checkArgument(!components.isEmpty());
+        IcalBuilder.Component component = components.removeLast();
+        out.append(IcalBuilder.Name.END.name()).append(':').append(component.name()).append(CRLF);
+        return this;
+    }
+
+    /**
+     * Retourne vrai ssi tous les composants commencés ont été terminés.
+     *
+     * @return vrai ssi aucun composant n'est ouvert
+     */
+    public boolean isComplete() {
+        return components.isEmpty();
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) return 1;
+        if (codePoint < 0x800) return 2;
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+}
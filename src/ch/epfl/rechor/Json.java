@@ -2,39 +2,34 @@ package ch.epfl.rechor;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public sealed interface Json permits Json.JArray, Json.JObject, Json.JString, Json.JNumber {
 
     record JArray(List<Json> values) implements Json {
         @Override
         public String toString() {
-            return values.stream()
-                    .map(Json::toString)
-                    .collect(Collectors.joining(",", "[", "]"));
+            return JsonWriter.toString(this);
         }
     }
 
     record JObject(Map<String, Json> members) implements Json {
         @Override
         public String toString() {
-            return members.entrySet().stream()
-                    .map(e -> '"' + e.getKey() + '"' + ":" + e.getValue().toString())
-                    .collect(Collectors.joining(",", "{", "}"));
+            return JsonWriter.toString(this);
         }
     }
 
     record JString(String value) implements Json {
         @Override
         public String toString() {
-            return '"' + value + '"';
+            return JsonWriter.toString(this);
         }
     }
 
     record JNumber(double value) implements Json {
         @Override
         public String toString() {
-            return Double.toString(value);
+            return JsonWriter.toString(this);
         }
     }
 }
@@ -0,0 +1,266 @@
+package ch.epfl.rechor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Écrivain JSON, produisant en une seule passe le texte d'une valeur JSON dans un
+ * {@link Appendable}, p. ex. un {@link StringBuilder} ou un {@link java.io.Writer}.
+ *
+ * Les valeurs peuvent être écrites soit à partir d'un arbre {@link Json}, soit directement au
+ * moyen des méthodes {@code begin…}, {@code end…}, {@code name} et {@code value}, ce qui évite
+ * de construire l'arbre. Les virgules séparant les éléments sont insérées automatiquement, et
+ * les chaînes sont échappées conformément à la RFC 8259. Les nombres réels sont écrits comme
+ * par {@link Double#toString(double)}.
+ */
+public final class JsonWriter {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // Plus petite valeur que Double.toString écrit en notation scientifique
+    private static final double SCIENTIFIC_THRESHOLD = 1e7;
+
+    private final Appendable out;
+    // Pour chaque conteneur ouvert : vrai ssi c'est un objet, et vrai ssi il a déjà un élément
+    private boolean[] isObject = new boolean[8];
+    private boolean[] hasElement = new boolean[8];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Construit un écrivain JSON écrivant dans la destination donnée.
+     *
+     * @param out la destination du texte
+     */
+    public JsonWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Retourne le texte JSON de la valeur donnée.
+     *
+     * @param json la valeur
+     * @return le texte JSON de la valeur
+     */
+    public static String toString(Json json) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            new JsonWriter(sb).value(json);
+        } catch (IOException e) {
+            // Impossible, un StringBuilder ne lève jamais d'IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Commence un tableau.
+     *
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si une valeur n'est pas attendue à cette position
+     */
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.append('[');
+        push(false);
+        return this;
+    }
+
+    /**
+     * Termine le tableau courant.
+     *
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si le conteneur courant n'est pas un tableau
+     */
+    public JsonWriter endArray() throws IOException {
+        pop(false);
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * Commence un objet.
+     *
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si une valeur n'est pas attendue à cette position
+     */
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.append('{');
+        push(true);
+        return this;
+    }
+
+    /**
+     * Termine l'objet courant.
+     *
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si le conteneur courant n'est pas un objet, ou si le
+     *                                  dernier nom écrit n'a pas de valeur
+     */
+    public JsonWriter endObject() throws IOException {
+        Preconditions.checkArgument(!afterName);
+        pop(true);
+        out.append('}');
+        return this;
+    }
+
+    /**
+     * Écrit le nom du prochain membre de l'objet courant.
+     *
+     * @param name le nom du membre
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si le conteneur courant n'est pas un objet, ou si le
+     *                                  nom précédent n'a pas de valeur
+     */
+    public JsonWriter name(String name) throws IOException {
+        Preconditions.checkArgument(depth > 0 && isObject[depth - 1] && !afterName);
+        separate();
+        string(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Écrit une chaîne, en l'échappant.
+     *
+     * @param value la chaîne
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si une valeur n'est pas attendue à cette position
+     */
+    public JsonWriter value(String value) throws IOException {
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    /**
+     * Écrit un nombre réel, sous la même forme que {@link Double#toString(double)}.
+     *
+     * @param value le nombre
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si le nombre n'est pas fini (JSON ne représente ni les
+     *                                  infinis ni NaN), ou si une valeur n'est pas attendue à
+     *                                  cette position
+     */
+    public JsonWriter value(double value) throws IOException {
+        Preconditions.checkArgument(Double.isFinite(value));
+        beforeValue();
+        long integral = (long) value;
+        if (integral == value && Math.abs(value) < SCIENTIFIC_THRESHOLD
+                && (integral != 0 || 1 / value > 0)) {
+            // Cas fréquent d'un entier, écrit sans passer par l'algorithme général
+            appendLong(integral);
+            out.append(".0");
+        } else {
+            out.append(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * Écrit un nombre entier, sans partie fractionnaire.
+     *
+     * @param value le nombre
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si une valeur n'est pas attendue à cette position
+     */
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        appendLong(value);
+        return this;
+    }
+
+    /**
+     * Écrit la valeur JSON donnée, récursivement.
+     *
+     * @param json la valeur
+     * @return cet écrivain
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si une valeur n'est pas attendue à cette position
+     */
+    public JsonWriter value(Json json) throws IOException {
+        switch (json) {
+            case Json.JString s -> value(s.value());
+            case Json.JNumber n -> value(n.value());
+            case Json.JArray a -> {
+                beginArray();
+                for (Json v : a.values()) value(v);
+                endArray();
+            }
+            case Json.JObject o -> {
+                beginObject();
+                for (Map.Entry<String, Json> e : o.members().entrySet()) name(e.getKey()).value(e.getValue());
+                endObject();
+            }
+        }
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else {
+            Preconditions.checkArgument(depth == 0 || !isObject[depth - 1]);
+            separate();
+        }
+    }
+
+    private void separate() throws IOException {
+        if (depth == 0) return;
+        if (hasElement[depth - 1]) out.append(',');
+        hasElement[depth - 1] = true;
+    }
+
+    private void push(boolean object) {
+        if (depth == isObject.length) {
+            isObject   = Arrays.copyOf(isObject, 2 * depth);
+            hasElement = Arrays.copyOf(hasElement, 2 * depth);
+        }
+        isObject[depth]   = object;
+        hasElement[depth] = false;
+        depth += 1;
+    }
+
+    private void pop(boolean object) {
+        Preconditions.checkArgument(depth > 0 && isObject[depth - 1] == object);
+        depth -= 1;
+    }
+
+    private void string(String s) throws IOException {
+        out.append('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.append(s, start, i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.append(s, start, s.length());
+        out.append('"');
+    }
+
+    private void appendLong(long value) throws IOException {
+        if (out instanceof StringBuilder sb) sb.append(value);
+        else out.append(Long.toString(value));
+    }
+}
@@ -1,12 +1,28 @@
 package ch.epfl.rechor;
 
-import java.text.Collator;
+import ch.epfl.rechor.timetable.StationAliases;
+import ch.epfl.rechor.timetable.Stations;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * Index des noms d'arrêts, permettant de rechercher les arrêts dont le nom correspond à une
+ * requête.
+ *
+ * Chaque sous-requête est transformée en expression régulière (voir {@link #stopsMatching}).
+ * Pour éviter d'évaluer ces expressions sur tous les noms, l'index contient une version
+ * normalisée de chaque nom (en minuscules et sans les accents reconnus par les expressions),
+ * ainsi que, pour chaque trigramme de ces noms normalisés, la liste des noms qui le contiennent.
+ * Tout nom correspondant à une sous-requête contient la sous-requête normalisée, de sorte que
+ * seuls les noms contenant les trigrammes de celle-ci doivent être examinés.
+ *
+ * Ces tables peuvent être enregistrées dans un fichier et projetées en mémoire au démarrage
+ * suivant, voir {@link StopIndexSnapshot}.
+ */
 public final class StopIndex {
 
     private static final Map<Character, String> ACCENT_EQUIV = Map.of(
@@ -18,19 +34,122 @@ public final class StopIndex {
             'u', "uúùûü"
 
     );
+    private static final int GRAM_LENGTH = 3;
 
-    private final List<String> primaryNames;
-    private final Map<String, String> nameToPrincipal;
+    // Noms (principaux et alternatifs) distincts, triés, et leur version normalisée
+    private final String[] names;
+    private final String[] normalizedNames;
+    // Index, dans principals, du nom principal de chaque nom
+    private final IntBuffer principalOf;
+    private final String[] principals;
+    // Noms principaux distincts, triés, retournés pour une requête vide
+    private final String[] sortedPrimaryNames;
+    // Trigrammes triés et, pour chacun, la plage de postings contenant les index des noms
+    private final LongBuffer gramKeys;
+    private final IntBuffer gramOffsets;
+    private final IntBuffer postings;
 
 
     public StopIndex(List<String> names, Map<String, String> alterantes){
-        this.primaryNames = List.copyOf(names);
-
         Map<String, String> map = new HashMap<>(alterantes);
         for (String name : names) {
             map.putIfAbsent(name, name);
         }
-        this.nameToPrincipal = Map.copyOf(map);
+
+        this.names = map.keySet().toArray(String[]::new);
+        Arrays.sort(this.names);
+        this.principals = new TreeSet<>(map.values()).toArray(String[]::new);
+        this.sortedPrimaryNames = new TreeSet<>(names).toArray(String[]::new);
+
+        Map<String, Integer> principalIds = new HashMap<>();
+        for (int i = 0; i < principals.length; i++) principalIds.put(principals[i], i);
+        int[] principalOf = new int[this.names.length];
+        this.normalizedNames = new String[this.names.length];
+        for (int i = 0; i < this.names.length; i++) {
+            principalOf[i] = principalIds.get(map.get(this.names[i]));
+            normalizedNames[i] = normalize(this.names[i]);
+        }
+        this.principalOf = IntBuffer.wrap(principalOf);
+
+        // Trigrammes distincts de chaque nom, puis table des trigrammes de tous les noms
+        long[][] nameGrams = new long[this.names.length][];
+        int total = 0;
+        for (int i = 0; i < nameGrams.length; i++) {
+            nameGrams[i] = grams(normalizedNames[i]);
+            total += nameGrams[i].length;
+        }
+        long[] allGrams = new long[total];
+        int pos = 0;
+        for (long[] g : nameGrams) {
+            System.arraycopy(g, 0, allGrams, pos, g.length);
+            pos += g.length;
+        }
+        long[] keys = distinctSorted(allGrams);
+
+        int[] offsets = new int[keys.length + 1];
+        for (long[] g : nameGrams)
+            for (long key : g) offsets[Arrays.binarySearch(keys, key) + 1] += 1;
+        for (int k = 0; k < keys.length; k++) offsets[k + 1] += offsets[k];
+        int[] fill = Arrays.copyOf(offsets, keys.length);
+        int[] postings = new int[total];
+        for (int i = 0; i < nameGrams.length; i++)
+            for (long key : nameGrams[i]) postings[fill[Arrays.binarySearch(keys, key)]++] = i;
+
+        this.gramKeys = LongBuffer.wrap(keys);
+        this.gramOffsets = IntBuffer.wrap(offsets);
+        this.postings = IntBuffer.wrap(postings);
+    }
+
+    /** Construit un index à partir de tables existantes, p. ex. projetées depuis un fichier. */
+    StopIndex(String[] names,
+              String[] normalizedNames,
+              IntBuffer principalOf,
+              String[] principals,
+              String[] sortedPrimaryNames,
+              LongBuffer gramKeys,
+              IntBuffer gramOffsets,
+              IntBuffer postings) {
+        Preconditions.checkArgument(names.length == normalizedNames.length
+                && names.length == principalOf.capacity()
+                && gramOffsets.capacity() == gramKeys.capacity() + 1);
+        this.names = names;
+        this.normalizedNames = normalizedNames;
+        this.principalOf = principalOf;
+        this.principals = principals;
+        this.sortedPrimaryNames = sortedPrimaryNames;
+        this.gramKeys = gramKeys;
+        this.gramOffsets = gramOffsets;
+        this.postings = postings;
+    }
+
+    /**
+     * Construit l'index des noms des gares données et de leurs noms alternatifs. Un nom
+     * alternatif identique au nom d'une gare est ignoré.
+     *
+     * @param stations les gares
+     * @param aliases  les noms alternatifs des gares
+     * @return l'index des noms
+     */
+    public static StopIndex of(Stations stations, StationAliases aliases) {
+        Set<String> allNames = new HashSet<>();
+        List<String> primaryNames = new ArrayList<>();
+        Map<String, String> alternateNames = new HashMap<>();
+
+        for (int i = 0; i < stations.size(); i++) {
+            String stationName = stations.name(i);
+            primaryNames.add(stationName);
+            allNames.add(stationName);
+        }
+
+        for (int i = 0; i < aliases.size(); i++) {
+            String alias = aliases.alias(i);
+            String stationName = aliases.stationName(i);
+            if (!allNames.contains(alias)) {
+                alternateNames.put(alias, stationName);
+            }
+        }
+
+        return new StopIndex(primaryNames, alternateNames);
     }
 
     public List<String> stopsMatching(String query, int max) {
@@ -41,38 +160,53 @@ public final class StopIndex {
         // **CAS SPÉCIAL : si la requête est vide, on renvoie toutes
         // les gares principales triées alphabétiquement**
         if (trimmed.isEmpty()) {
-            return primaryNames.stream()    // primaryNames contient
-                    .distinct()  // la liste des noms de gare
-                    .sorted()    // tri lexicographique
-                    .limit(max)  // on plafonne à max
-                    .collect(Collectors.toList());
+            return new ArrayList<>(Arrays.asList(sortedPrimaryNames)
+                    .subList(0, Math.min(max, sortedPrimaryNames.length)));
         }
 
-        String[] subs = query.trim().split("\\s+");
+        String[] subs = trimmed.split("\\s+");
 
-        List<Pattern> patterns = Arrays.stream(subs)
-                .map(this::buildPattern)
-                .collect(Collectors.toList());
+        List<Pattern> patterns = new ArrayList<>(subs.length);
+        List<String> filters = new ArrayList<>(subs.length);
+        for (String sub : subs) {
+            patterns.add(buildPattern(sub));
+            String filter = filterFor(sub);
+            if (filter != null) filters.add(filter);
+        }
 
-        int qLen = subs.length; 
+        // Plus courte liste de noms contenant l'un des trigrammes des sous-requêtes
+        int from = 0, to = names.length;
+        boolean usePostings = false;
+        for (String filter : filters) {
+            for (int i = 0; i + GRAM_LENGTH <= filter.length(); i++) {
+                int k = gramIndex(gram(filter, i));
+                if (k < 0) return new ArrayList<>();
+                int start = gramOffsets.get(k), end = gramOffsets.get(k + 1);
+                if (end - start < to - from) {
+                    from = start;
+                    to = end;
+                    usePostings = true;
+                }
+            }
+        }
 
-        Map<String, Integer> principalScores = nameToPrincipal.entrySet().stream()
-                .flatMap(e -> Stream.of(e.getKey()))
-                .distinct()
-                .map(name -> Map.entry(name, computeScore(name, patterns)))
-                .filter(e -> e.getValue() > 0)
-                .collect(Collectors.toMap(
-                        nameScore -> nameToPrincipal.get(nameScore.getKey()),
-                        Map.Entry::getValue,
-                        Integer::max
-                ));
+        int[] scores = new int[principals.length];
+        List<Integer> matched = new ArrayList<>();
+        for (int p = from; p < to; p++) {
+            int i = usePostings ? postings.get(p) : p;
+            if (!containsAll(normalizedNames[i], filters)) continue;
+            int score = computeScore(names[i], patterns);
+            if (score <= 0) continue;
+            int principal = principalOf.get(i);
+            if (scores[principal] == 0) matched.add(principal);
+            scores[principal] = Math.max(scores[principal], score);
+        }
 
-        return principalScores.entrySet().stream()
-                .sorted(Map.Entry.<String,Integer>comparingByValue(Comparator.reverseOrder())
-                        .thenComparing(Map.Entry.comparingByKey()))
-                .limit(max)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        matched.sort(Comparator.<Integer>comparingInt(p -> -scores[p])
+                .thenComparing(p -> principals[p]));
+        List<String> result = new ArrayList<>(Math.min(max, matched.size()));
+        for (int k = 0; k < matched.size() && k < max; k++) result.add(principals[matched.get(k)]);
+        return result;
     }
 
     private Pattern buildPattern(String sub) {
@@ -111,4 +245,118 @@ public final class StopIndex {
         }
         return total;
     }
+
+    /**
+     * Retourne la sous-requête normalisée, que contient tout nom normalisé correspondant à la
+     * sous-requête, ou null si la normalisation ne garantit pas cette propriété pour l'un de
+     * ses caractères, auquel cas la sous-requête ne permet pas d'écarter de noms.
+     */
+    private static String filterFor(String sub) {
+        for (int i = 0; i < sub.length(); i++) {
+            char c = sub.charAt(i);
+            if (Character.isSurrogate(c)) return null;
+            char lower = caseFold(c);
+            if (caseFold(lower) != lower) return null;
+        }
+        return normalize(sub);
+    }
+
+    private static boolean containsAll(String normalizedName, List<String> filters) {
+        for (String filter : filters) {
+            if (!normalizedName.contains(filter)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retourne le nom normalisé : chaque caractère est remplacé par sa minuscule, telle que
+     * calculée par les expressions insensibles à la casse, puis privé de son accent s'il fait
+     * partie de ceux reconnus par les expressions.
+     */
+    static String normalize(String name) {
+        char[] chars = new char[name.length()];
+        for (int i = 0; i < chars.length; i++) {
+            char lower = caseFold(name.charAt(i));
+            chars[i] = lower < ACCENT_BASE.length ? ACCENT_BASE[lower] : lower;
+        }
+        return new String(chars);
+    }
+
+    private static char caseFold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    // Lettre de base de chaque caractère (de code inférieur à 256) accentué des expressions
+    private static final char[] ACCENT_BASE = new char[256];
+
+    static {
+        for (char c = 0; c < ACCENT_BASE.length; c++) ACCENT_BASE[c] = c;
+        for (Map.Entry<Character, String> e : ACCENT_EQUIV.entrySet())
+            for (char c : e.getValue().toCharArray()) ACCENT_BASE[c] = e.getKey();
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static long[] grams(String normalizedName) {
+        int count = Math.max(0, normalizedName.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) grams[i] = gram(normalizedName, i);
+        return distinctSorted(grams);
+    }
+
+    private static long[] distinctSorted(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[n++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    private int gramIndex(long key) {
+        int lo = 0, hi = gramKeys.capacity() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = gramKeys.get(mid);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    String[] names() {
+        return names;
+    }
+
+    String[] normalizedNames() {
+        return normalizedNames;
+    }
+
+    IntBuffer principalOf() {
+        return principalOf.duplicate();
+    }
+
+    String[] principals() {
+        return principals;
+    }
+
+    String[] sortedPrimaryNames() {
+        return sortedPrimaryNames;
+    }
+
+    LongBuffer gramKeys() {
+        return gramKeys.duplicate();
+    }
+
+    IntBuffer gramOffsets() {
+        return gramOffsets.duplicate();
+    }
+
+    IntBuffer postings() {
+        return postings.duplicate();
+    }
 }
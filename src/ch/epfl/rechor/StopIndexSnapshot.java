@@ -0,0 +1,208 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.StationAliases;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.mapped.TimeTableStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Instantané binaire d'un {@link StopIndex}, enregistré dans le dossier d'un horaire, à côté
+ * de {@code strings.txt}, et projeté en mémoire lors de son chargement.
+ *
+ * L'instantané débute par un en-tête contenant un nombre magique, la version du format et une
+ * empreinte des fichiers de l'horaire dont il est tiré. Il est reconstruit lorsque l'une de
+ * ces valeurs ne correspond pas, p. ex. après la mise à jour de l'horaire. Viennent ensuite les
+ * tables de l'index : les trigrammes, la plage de noms de chacun, les index des noms, le nom
+ * principal de chaque nom et enfin les noms eux-mêmes, encodés en UTF-8. Seuls ces derniers sont
+ * décodés au chargement, les autres tables étant lues directement dans la projection.
+ */
+public final class StopIndexSnapshot {
+    /** Nom du fichier de l'instantané dans le dossier de l'horaire. */
+    public static final String FILE_NAME = "stop-index.bin";
+
+    private static final int MAGIC = 0x52_43_53_49; // "RCSI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final List<String> SOURCE_FILES =
+            List.of("strings.txt", "stations.bin", "station-aliases.bin");
+
+    private StopIndexSnapshot() {}
+
+    /**
+     * Retourne l'index des noms des gares de l'horaire situé dans le dossier donné, projeté
+     * depuis l'instantané de ce dossier s'il existe et correspond à l'horaire, ou construit à
+     * partir des gares données et enregistré (dans la mesure du possible) dans le cas contraire.
+     *
+     * @param directory le dossier de l'horaire
+     * @param stations  les gares de l'horaire
+     * @param aliases   les noms alternatifs des gares de l'horaire
+     * @return l'index des noms
+     * @throws UncheckedIOException en cas d'erreur de lecture des fichiers de l'horaire
+     */
+    public static StopIndex load(Path directory, Stations stations, StationAliases aliases) {
+        long hash = sourceHash(directory);
+        Path file = directory.resolve(FILE_NAME);
+        try {
+            StopIndex index = read(file, hash);
+            if (index != null) return index;
+        } catch (IOException | RuntimeException e) {
+            // Instantané illisible : il est reconstruit
+        }
+
+        StopIndex index = StopIndex.of(stations, aliases);
+        try {
+            write(index, file, hash);
+        } catch (IOException | IllegalArgumentException e) {
+            // Dossier en lecture seule p. ex. : l'index reste utilisable sans instantané
+        }
+        return index;
+    }
+
+    /**
+     * Projette l'instantané contenu dans le fichier donné.
+     *
+     * @param file le fichier de l'instantané
+     * @param hash l'empreinte attendue des fichiers de l'horaire
+     * @return l'index, ou null si le fichier n'existe pas ou ne correspond pas à l'empreinte
+     * @throws IOException en cas d'erreur de lecture
+     */
+    static StopIndex read(Path file, long hash) throws IOException {
+        if (!Files.exists(file)) return null;
+        ByteBuffer b;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            b = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (b.capacity() < HEADER_SIZE
+                || b.getInt(0) != MAGIC
+                || b.getInt(4) != VERSION
+                || b.getLong(8) != hash) return null;
+
+        int nameCount      = b.getInt(16);
+        int principalCount = b.getInt(20);
+        int primaryCount   = b.getInt(24);
+        int gramCount      = b.getInt(28);
+        int postingCount   = b.getInt(32);
+
+        int pos = HEADER_SIZE;
+        LongBuffer gramKeys = b.slice(pos, gramCount * Long.BYTES).asLongBuffer();
+        pos += gramCount * Long.BYTES;
+        IntBuffer gramOffsets = b.slice(pos, (gramCount + 1) * Integer.BYTES).asIntBuffer();
+        pos += (gramCount + 1) * Integer.BYTES;
+        IntBuffer postings = b.slice(pos, postingCount * Integer.BYTES).asIntBuffer();
+        pos += postingCount * Integer.BYTES;
+        IntBuffer principalOf = b.slice(pos, nameCount * Integer.BYTES).asIntBuffer();
+        pos += nameCount * Integer.BYTES;
+
+        String[][] strings = new String[4][];
+        int[] counts = {nameCount, nameCount, principalCount, primaryCount};
+        for (int s = 0; s < strings.length; s++) {
+            int length = b.getInt(pos);
+            byte[] bytes = new byte[length];
+            b.get(pos + Integer.BYTES, bytes);
+            pos += Integer.BYTES + length;
+            strings[s] = split(new String(bytes, StandardCharsets.UTF_8), counts[s]);
+        }
+
+        return new StopIndex(strings[0], strings[1], principalOf, strings[2], strings[3],
+                gramKeys, gramOffsets, postings);
+    }
+
+    /**
+     * Enregistre l'instantané de l'index donné dans le fichier donné, en remplaçant
+     * atomiquement son éventuel contenu.
+     *
+     * @param index l'index
+     * @param file  le fichier de l'instantané
+     * @param hash  l'empreinte des fichiers de l'horaire dont l'index est tiré
+     * @throws IOException              en cas d'erreur d'écriture
+     * @throws IllegalArgumentException si l'un des noms contient un retour à la ligne
+     */
+    static void write(StopIndex index, Path file, long hash) throws IOException {
+        LongBuffer gramKeys = index.gramKeys();
+        IntBuffer gramOffsets = index.gramOffsets();
+        IntBuffer postings = index.postings();
+        IntBuffer principalOf = index.principalOf();
+        byte[][] strings = {
+                join(index.names()),
+                join(index.normalizedNames()),
+                join(index.principals()),
+                join(index.sortedPrimaryNames())
+        };
+
+        int size = HEADER_SIZE
+                + gramKeys.capacity() * Long.BYTES
+                + (gramOffsets.capacity() + postings.capacity() + principalOf.capacity()) * Integer.BYTES;
+        for (byte[] s : strings) size += Integer.BYTES + s.length;
+
+        ByteBuffer b = ByteBuffer.allocate(size);
+        b.putInt(MAGIC).putInt(VERSION).putLong(hash)
+                .putInt(index.names().length)
+                .putInt(index.principals().length)
+                .putInt(index.sortedPrimaryNames().length)
+                .putInt(gramKeys.capacity())
+                .putInt(postings.capacity())
+                .putInt(0);
+        b.asLongBuffer().put(gramKeys);
+        b.position(b.position() + gramKeys.capacity() * Long.BYTES);
+        for (IntBuffer ints : new IntBuffer[]{gramOffsets, postings, principalOf}) {
+            b.asIntBuffer().put(ints);
+            b.position(b.position() + ints.capacity() * Integer.BYTES);
+        }
+        for (byte[] s : strings) b.putInt(s.length).put(s);
+
+        Path temp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+        try {
+            Files.write(temp, b.array());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Retourne l'empreinte des fichiers de l'horaire situé dans le dossier donné dont l'index
+     * des noms est tiré.
+     *
+     * @param directory le dossier de l'horaire
+     * @return l'empreinte des fichiers, combinée à la version du format
+     * @throws UncheckedIOException en cas d'erreur de lecture
+     */
+    static long sourceHash(Path directory) {
+        long hash = VERSION;
+        for (String name : SOURCE_FILES) {
+            CRC32C crc = new CRC32C();
+            try (FileChannel channel = FileChannel.open(TimeTableStore.resolve(directory.resolve(name)), StandardOpenOption.READ)) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                hash = 31 * hash + (channel.size() << 32 | crc.getValue());
+            } catch (NoSuchFileException e) {
+                hash = 31 * hash - 1;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return hash;
+    }
+
+    // Les noms de l'horaire, tirés des lignes de strings.txt, ne contiennent pas de retour à la ligne
+    private static byte[] join(String[] strings) {
+        for (String s : strings) Preconditions.checkArgument(s.indexOf('\n') < 0);
+        return String.join("\n", strings).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String[] split(String joined, int count) {
+        if (count == 0) return new String[0];
+        String[] strings = joined.split("\n", -1);
+        if (strings.length != count) throw new IllegalArgumentException();
+        return strings;
+    }
+}
@@ -0,0 +1,33 @@
+package ch.epfl.rechor.app;
+
+import ch.epfl.rechor.timetable.mapped.TimeTableStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Déduplique les fichiers des instantanés d'horaire d'un dossier, en rangeant chaque contenu
+ * distinct une seule fois dans le magasin du dossier (voir {@link TimeTableStore}). L'outil
+ * peut être relancé après chaque import d'un nouvel instantané.
+ *
+ * Arguments (optionnels) : dossier des instantanés, mode ({@code links} pour des liens
+ * physiques lorsque c'est possible, {@code refs} pour des fichiers de renvoi uniquement).
+ */
+public class DeduplicateTimeTables {
+
+    public static void main(String[] args) throws IOException {
+        Path root    = Path.of(args.length > 0 ? args[0] : "timetables");
+        String mode  = args.length > 1 ? args[1] : "links";
+        if (!mode.equals("links") && !mode.equals("refs"))
+            throw new IllegalArgumentException("Mode inconnu : " + mode);
+
+        long t0 = System.nanoTime();
+        TimeTableStore.Report report = TimeTableStore.deduplicate(root, mode.equals("links"));
+        double ms = (System.nanoTime() - t0) * 1e-6;
+
+        System.out.printf("%d fichiers (%.1f Mo) -> %d contenus distincts (%.1f Mo), "
+                        + "%d fichiers remplacés (%s) en %.1f ms%n",
+                report.files(), report.bytes() / 1e6, report.uniqueFiles(), report.uniqueBytes() / 1e6,
+                report.linkedFiles(), mode, ms);
+    }
+}
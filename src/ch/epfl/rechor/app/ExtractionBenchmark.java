@@ -0,0 +1,67 @@
+package ch.epfl.rechor.app;
+
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneyExtractor;
+import ch.epfl.rechor.journey.Profile;
+import ch.epfl.rechor.journey.Router;
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+
+/**
+ * Mesure le temps d'extraction de tous les voyages d'un profil vers une grande gare.
+ * Arguments (optionnels) : dossier de l'horaire, date, nom de la gare d'arrivée, nombre de tours.
+ */
+public class ExtractionBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+
+    static int stationId(Stations stations, String name) {
+        for (int i = 0; i < stations.size(); i++) {
+            if (stations.name(i).equals(name)) return i;
+        }
+        throw new IllegalArgumentException("Station inconnue: " + name);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir       = Path.of(args.length > 0 ? args[0] : "timetables/timetable-03-17");
+        LocalDate date = args.length > 1 ? LocalDate.parse(args[1]) : LocalDate.of(2025, Month.MARCH, 18);
+        String arrName = args.length > 2 ? args[2] : "Lausanne";
+        int rounds     = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        TimeTable tt = new CachedTimeTable(FileTimeTable.in(dir));
+        Stations stations = tt.stations();
+        int arrId = stationId(stations, arrName);
+
+        long t0 = System.nanoTime();
+        Profile profile = new Router(tt).profile(date, arrId);
+        System.out.printf("Profil vers %s : %.1f ms%n", arrName, (System.nanoTime() - t0) * 1e-6);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) extractAll(profile, stations.size());
+
+        long journeys = 0;
+        long t1 = System.nanoTime();
+        for (int i = 0; i < rounds; i++) journeys = extractAll(profile, stations.size());
+        double ms = (System.nanoTime() - t1) * 1e-6 / rounds;
+
+        System.out.printf("%d voyages extraits en %.1f ms par tour (%.2f µs par voyage)%n",
+                journeys, ms, ms * 1e3 / Math.max(1, journeys));
+    }
+
+    /** Extrait les voyages de toutes les gares de départ et retourne leur nombre. */
+    private static long extractAll(Profile profile, int stationCount) {
+        long count = 0;
+        for (int dep = 0; dep < stationCount; dep++) {
+            if (dep == profile.arrStationId()) continue;
+            List<Journey> journeys = JourneyExtractor.journeys(profile, dep);
+            count += journeys.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,34 @@
+package ch.epfl.rechor.app;
+
+import ch.epfl.rechor.timetable.mapped.PackedTimeTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Empaquette le dossier d'un horaire (fichiers communs et jours) dans un unique fichier, projeté
+ * en une seule fois par {@link PackedTimeTable}, puis vérifie que celui-ci peut être relu.
+ *
+ * Arguments (optionnels) : dossier de l'horaire, fichier de sortie.
+ */
+public class PackTimeTable {
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : "timetables/timetable-03-17");
+        Path out = args.length > 1
+                ? Path.of(args[1])
+                : dir.resolveSibling(dir.getFileName() + PackedTimeTable.EXTENSION);
+
+        long t0 = System.nanoTime();
+        int sections = PackedTimeTable.write(dir, out);
+        double packMs = (System.nanoTime() - t0) * 1e-6;
+
+        t0 = System.nanoTime();
+        PackedTimeTable tt = PackedTimeTable.in(out);
+        double openMs = (System.nanoTime() - t0) * 1e-6;
+
+        System.out.printf("%d sections, %d jours (%.1f Mo) empaquetés en %.1f ms dans %s, relus en %.1f ms%n",
+                sections, tt.days().size(), Files.size(out) / 1e6, packMs, out, openMs);
+    }
+}
@@ -0,0 +1,181 @@
+package ch.epfl.rechor.app;
+
+import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.FootpathGraph;
+import ch.epfl.rechor.timetable.StationGrid;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Transfers;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Calcule hors ligne la fermeture transitive, bornée en durée, des changements d'un horaire, et
+ * l'écrit dans un fichier au format de transfers.bin, groupé par gare d'arrivée.
+ *
+ * Aux changements fournis par l'horaire s'ajoutent des trajets à pied entre gares proches, dont la
+ * durée est estimée à partir de leurs coordonnées. Toute gare atteignable depuis une autre en
+ * enchaînant des changements, en au plus la durée donnée, en reçoit un changement direct. Le
+ * routeur, qui n'applique qu'un seul changement à pied à chaque gare, profite ainsi des
+ * enchaînements sans coût supplémentaire lors des requêtes.
+ *
+ * Arguments (optionnels) : dossier de l'horaire, fichier de sortie, durée maximale en minutes.
+ */
+public class TransferClosure {
+    private static final int DEFAULT_MAX_MINUTES = 10;
+    // Taille d'un changement dans transfers.bin : départ (U16), arrivée (U16), durée (U8)
+    private static final int RECORD_SIZE = 5;
+    // Nombre maximal de changements arrivant à une même gare (intervalle empaqueté)
+    private static final int MAX_ARRIVING = 0xFF;
+
+    public static void main(String[] args) throws IOException {
+        Path dir       = Path.of(args.length > 0 ? args[0] : "timetables/timetable-03-17");
+        Path out       = args.length > 1 ? Path.of(args[1]) : dir.resolve("transfers-closed.bin");
+        int maxMinutes = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_MINUTES;
+
+        TimeTable tt = FileTimeTable.in(dir);
+        long t0 = System.nanoTime();
+        ByteBuffer closed = closure(tt.stations(), tt.transfers(), maxMinutes);
+        double ms = (System.nanoTime() - t0) * 1e-6;
+
+        try (FileChannel channel = FileChannel.open(out,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (closed.hasRemaining()) channel.write(closed);
+        }
+        System.out.printf("%d changements -> %d changements (%d min) en %.1f ms, écrits dans %s%n",
+                tt.transfers().size(), closed.capacity() / RECORD_SIZE, maxMinutes, ms, out);
+    }
+
+    /**
+     * Calcule la fermeture transitive des changements donnés, augmentés des trajets à pied entre
+     * gares proches, en ne conservant que les changements dérivés d'au plus la durée donnée.
+     * Les changements de l'horaire sont tous conservés, avec leur durée d'origine. Si plus de 255
+     * changements arrivent à une gare, seuls ceux de l'horaire et les dérivés les plus courts
+     * sont conservés.
+     *
+     * @param stations   les gares de l'horaire
+     * @param transfers  les changements de l'horaire
+     * @param maxMinutes la durée maximale, en minutes, d'un changement dérivé
+     * @return le contenu du fichier des changements, groupé par gare d'arrivée croissante
+     * @throws IllegalArgumentException si la durée maximale n'est pas comprise entre 0 et 255
+     */
+    public static ByteBuffer closure(Stations stations, Transfers transfers, int maxMinutes) {
+        Preconditions.checkArgument(0 <= maxMinutes && maxMinutes <= 0xFF);
+        int stationCount = stations.size();
+        FootpathGraph feed = transfers.footpaths(stationCount);
+        FootpathGraph walk = walkingEdges(stations, transfers, maxMinutes);
+
+        int[] dist = new int[stationCount];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        List<int[]> records = new ArrayList<>();
+        List<int[]> arriving = new ArrayList<>();
+        for (int arr = 0; arr < stationCount; arr++) {
+            arriving.clear();
+            List<Integer> reached = reachableFrom(arr, feed, walk, maxMinutes, dist);
+
+            // Changements de l'horaire, prioritaires et conservés tels quels ; les gares
+            // correspondantes sont marquées d'une durée de -1 pour ne pas être dupliquées
+            int range = feed.arrivingAt(arr);
+            for (int t = PackedRange.startInclusive(range); t < PackedRange.endExclusive(range); t++) {
+                int dep = feed.depStationId(t);
+                if (dist[dep] != Integer.MAX_VALUE) dist[dep] = -1;
+                arriving.add(new int[]{dep, feed.inMinutes(t), 0});
+            }
+            for (int dep : reached) {
+                if (dist[dep] != -1 && dep != arr) arriving.add(new int[]{dep, dist[dep], 1});
+                dist[dep] = Integer.MAX_VALUE;
+            }
+
+            // Tri stable : les changements de l'horaire gardent leur ordre, afin qu'en cas de
+            // doublon le premier reste celui retenu par minutesBetween
+            arriving.sort(Comparator.<int[]>comparingInt(r -> r[2]).thenComparingInt(r -> r[2] * r[1]));
+            List<int[]> kept = new ArrayList<>(arriving.subList(0, Math.min(MAX_ARRIVING, arriving.size())));
+            kept.sort(Comparator.comparingInt(r -> r[0]));
+            for (int[] r : kept) records.add(new int[]{r[0], arr, r[1]});
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        for (int[] r : records)
+            buffer.putShort((short) r[0]).putShort((short) r[1]).put((byte) r[2]);
+        return buffer.flip();
+    }
+
+    /**
+     * Calcule, par un algorithme de Dijkstra sur les changements inversés, la durée minimale de
+     * marche depuis chaque gare vers la gare d'arrivée donnée, tant qu'elle ne dépasse pas la
+     * durée maximale. Les durées sont écrites dans le tableau donné, qui ne doit contenir que
+     * Integer.MAX_VALUE, et les gares atteintes sont retournées.
+     */
+    private static List<Integer> reachableFrom(int arr,
+                                               FootpathGraph feed,
+                                               FootpathGraph walk,
+                                               int maxMinutes,
+                                               int[] dist) {
+        List<Integer> reached = new ArrayList<>();
+        // Chaque élément empaquette la durée (32 bits de poids fort) et la gare
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        dist[arr] = 0;
+        reached.add(arr);
+        queue.add((long) arr);
+        while (!queue.isEmpty()) {
+            long head = queue.poll();
+            int st = (int) head;
+            int d  = (int) (head >>> 32);
+            if (d > dist[st]) continue;
+
+            for (FootpathGraph g : List.of(feed, walk)) {
+                int range = g.arrivingAt(st);
+                for (int t = PackedRange.startInclusive(range); t < PackedRange.endExclusive(range); t++) {
+                    int from = g.depStationId(t);
+                    int nd   = d + g.inMinutes(t);
+                    if (nd > maxMinutes || nd >= dist[from]) continue;
+                    if (dist[from] == Integer.MAX_VALUE) reached.add(from);
+                    dist[from] = nd;
+                    queue.add(((long) nd << 32) | from);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Retourne le graphe des trajets à pied, dans les deux sens, entre les gares distinctes
+     * atteignables l'une depuis l'autre en au plus la durée donnée et que l'horaire ne relie
+     * pas déjà. Les gares voisines sont obtenues au moyen de l'index spatial des gares.
+     */
+    private static FootpathGraph walkingEdges(Stations stations, Transfers transfers, int maxMinutes) {
+        StationGrid grid = stations.grid();
+        double maxMeters = maxMinutes * StationGrid.WALKING_METERS_PER_MINUTE;
+        List<int[]> edges = new ArrayList<>();
+        for (int a = 0; a < stations.size(); a++) {
+            double lon = stations.longitude(a), lat = stations.latitude(a);
+            for (int b : grid.within(lon, lat, maxMeters)) {
+                if (b <= a) continue;
+                double meters = grid.distance(b, lon, lat);
+                int minutes = Math.max(1, StationGrid.walkingMinutes(meters));
+                if (!hasTransfer(transfers, a, b)) edges.add(new int[]{a, b, minutes});
+                if (!hasTransfer(transfers, b, a)) edges.add(new int[]{b, a, minutes});
+            }
+        }
+        return FootpathGraph.of(edges.size(), i -> edges.get(i)[0], i -> edges.get(i)[1], i -> edges.get(i)[2]);
+    }
+
+    /**
+     * Retourne vrai ssi l'horaire fournit un changement de la première gare vers la seconde, ce
+     * qui n'est jamais le cas des gares d'index supérieur à ceux de ses changements.
+     */
+    private static boolean hasTransfer(Transfers transfers, int depStationId, int arrStationId) {
+        return transfers.findMinutesBetween(depStationId, arrStationId) >= 0;
+    }
+}
@@ -24,12 +24,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public record DetailUI(Node rootNode) {
 
-    private record CirclePair(Circle from, Circle to) {}
+    private record CirclePair(Circle from, Circle to, Line line) {}
 
     public static DetailUI create(ObservableValue<Journey> journeyOV) {
         VBox rootContent = new VBox();
@@ -117,8 +122,19 @@ public record DetailUI(Node rootNode) {
     }
 
     private static final class StepsPane extends GridPane {
+        // Nombre d'étapes dont les nœuds sont conservés, de quoi revenir sans les reconstruire
+        // aux derniers voyages affichés
+        private static final int LEG_CACHE_CAPACITY = 64;
+
         private final List<CirclePair> links = new ArrayList<>();
         private final Pane annotations;
+        private final Map<Journey.Leg, LegRows> legCache =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Journey.Leg, LegRows> eldest) {
+                        return size() > LEG_CACHE_CAPACITY;
+                    }
+                };
 
         StepsPane(Pane annotations) {
             this.annotations = annotations;
@@ -131,14 +147,27 @@ public record DetailUI(Node rootNode) {
 
         void buildFor(Journey j) {
             clear();
+            List<Node> children = new ArrayList<>();
+            Set<LegRows> shown = Collections.newSetFromMap(new IdentityHashMap<>());
             int row = 0;
             for (Journey.Leg leg : j.legs()) {
-                row = switch (leg) {
-                    case Journey.Leg.Foot f -> addFoot(f, row);
-                    case Journey.Leg.Transport t -> addTransport(t, row);
-                    default -> throw new IllegalStateException("Unexpected value: " + leg);
-                };
+                LegRows legRows = legCache.get(leg);
+                if (legRows == null || shown.contains(legRows)) {
+                    legRows = buildRows(leg);
+                    legCache.put(leg, legRows);
+                }
+                shown.add(legRows);
+
+                for (int i = 0; i < legRows.nodes().size(); i++)
+                    setRowIndex(legRows.nodes().get(i), row + legRows.rows()[i]);
+                children.addAll(legRows.nodes());
+                if (legRows.link() != null) {
+                    links.add(legRows.link());
+                    annotations.getChildren().add(legRows.link().line());
+                }
+                row += legRows.rowCount();
             }
+            getChildren().setAll(children);
         }
 
         void clear() {
@@ -147,24 +176,34 @@ public record DetailUI(Node rootNode) {
             links.clear();
         }
 
-        private int addFoot(Journey.Leg.Foot f, int row) {
-            add(new Text(FormatterFr.formatLeg(f)), 2, row, 2, 1);
-            return row + 1;
+        private static LegRows buildRows(Journey.Leg leg) {
+            RowsBuilder b = new RowsBuilder();
+            switch (leg) {
+                case Journey.Leg.Foot f -> addFoot(b, f);
+                case Journey.Leg.Transport t -> addTransport(b, t);
+                default -> throw new IllegalStateException("Unexpected value: " + leg);
+            }
+            return b.build();
+        }
+
+        private static void addFoot(RowsBuilder b, Journey.Leg.Foot f) {
+            b.add(new Text(FormatterFr.formatLeg(f)), 2, 0, 2);
+            b.rowCount = 1;
         }
 
-        private int addTransport(Journey.Leg.Transport t, int row) {
-            addText(FormatterFr.formatTime(t.depTime()), 0, row, "departure");
+        private static void addTransport(RowsBuilder b, Journey.Leg.Transport t) {
+            b.add(text(FormatterFr.formatTime(t.depTime()), "departure"), 0, 0, 1);
             Circle depC = circle();
-            add(depC, 1, row);
-            add(new Text(t.depStop().name()), 2, row);
-            addText(FormatterFr.formatPlatformName(t.depStop()), 3, row, "departure");
+            b.add(depC, 1, 0, 1);
+            b.add(new Text(t.depStop().name()), 2, 0, 1);
+            b.add(text(FormatterFr.formatPlatformName(t.depStop()), "departure"), 3, 0, 1);
 
             ImageView icon = new ImageView(VehicleIcons.iconFor(t.vehicle()));
             icon.setFitHeight(31);
             icon.setFitWidth(31);
             setValignment(icon, VPos.TOP);
-            add(icon, 0, row + 1);
-            add(new Text(FormatterFr.formatRouteDestination(t)), 2, row + 1, 2, 1);
+            b.add(icon, 0, 1, 1);
+            b.add(new Text(FormatterFr.formatRouteDestination(t)), 2, 1, 2);
 
             int extra = 0;
             if (!t.intermediateStops().isEmpty()) {
@@ -181,46 +220,71 @@ public record DetailUI(Node rootNode) {
                 }
                 TitledPane tp = new TitledPane(r + " arrêt" + (r > 1 ? "s" : "") + ", " + FormatterFr.formatDuration(t.duration()), g);
                 tp.setExpanded(false);
-                add(tp, 2, row + 2, 2, 1);
+                b.add(tp, 2, 2, 2);
                 GridPane.setRowSpan(icon, 2);
                 extra = 1;
             }
 
-            int arrRow = row + 2 + extra;
-            addText(FormatterFr.formatTime(t.arrTime()), 0, arrRow, null);
+            int arrRow = 2 + extra;
+            b.add(text(FormatterFr.formatTime(t.arrTime()), null), 0, arrRow, 1);
             Circle arrC = circle();
-            add(arrC, 1, arrRow);
-            add(new Text(t.arrStop().name()), 2, arrRow);
-            add(new Text(FormatterFr.formatPlatformName(t.arrStop())), 3, arrRow);
+            b.add(arrC, 1, arrRow, 1);
+            b.add(new Text(t.arrStop().name()), 2, arrRow, 1);
+            b.add(new Text(FormatterFr.formatPlatformName(t.arrStop())), 3, arrRow, 1);
 
-            links.add(new CirclePair(depC, arrC));
-            return arrRow + 1;
+            Line line = new Line();
+            line.setStroke(Color.RED);
+            line.setStrokeWidth(2);
+            b.link = new CirclePair(depC, arrC, line);
+            b.rowCount = arrRow + 1;
         }
 
         private static Circle circle() {
             return new Circle(3, Color.BLACK);
         }
 
-        private void addText(String text, int col, int row, String css) {
+        private static Text text(String text, String css) {
             Text t = new Text(text);
             if (css != null) t.getStyleClass().add(css);
-            add(t, col, row);
+            return t;
         }
 
         @Override
         protected void layoutChildren() {
             super.layoutChildren();
-            annotations.getChildren().clear();
             for (CirclePair c : links) {
-                double x1 = c.from.getBoundsInParent().getCenterX();
-                double y1 = c.from.getBoundsInParent().getCenterY();
-                double x2 = c.to.getBoundsInParent().getCenterX();
-                double y2 = c.to.getBoundsInParent().getCenterY();
-                Line l = new Line(x1, y1, x2, y2);
-                l.setStroke(Color.RED);
-                l.setStrokeWidth(2);
-                annotations.getChildren().add(l);
+                c.line.setStartX(c.from.getBoundsInParent().getCenterX());
+                c.line.setStartY(c.from.getBoundsInParent().getCenterY());
+                c.line.setEndX(c.to.getBoundsInParent().getCenterX());
+                c.line.setEndY(c.to.getBoundsInParent().getCenterY());
             }
         }
     }
+
+    /**
+     * Nœuds affichant une étape, avec pour chacun sa ligne relative à la première ligne de
+     * l'étape, le nombre de lignes occupées et, pour une étape en transport, le lien entre ses
+     * cercles de départ et d'arrivée.
+     */
+    private record LegRows(List<Node> nodes, int[] rows, int rowCount, CirclePair link) {}
+
+    /** Bâtisseur des nœuds d'une étape. */
+    private static final class RowsBuilder {
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Integer> rows = new ArrayList<>();
+        private int rowCount;
+        private CirclePair link;
+
+        void add(Node node, int col, int row, int colSpan) {
+            GridPane.setColumnIndex(node, col);
+            GridPane.setColumnSpan(node, colSpan);
+            nodes.add(node);
+            rows.add(row);
+        }
+
+        LegRows build() {
+            return new LegRows(List.copyOf(nodes),
+                    rows.stream().mapToInt(Integer::intValue).toArray(), rowCount, link);
+        }
+    }
 }
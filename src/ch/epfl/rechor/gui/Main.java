@@ -1,95 +1,87 @@
 package ch.epfl.rechor.gui;
 
 import ch.epfl.rechor.StopIndex;
+import ch.epfl.rechor.StopIndexSnapshot;
 import ch.epfl.rechor.journey.*;
 import ch.epfl.rechor.timetable.*;
 import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import ch.epfl.rechor.timetable.mapped.TimeTableCatalog;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.control.SplitPane;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 public final class Main extends Application {
 
-    private ObservableValue<List<Journey>> journeysO;
+    // Durées du démarrage au niveau INFO, erreurs aux niveaux WARNING et ERROR
+    private static final System.Logger LOGGER = System.getLogger(Main.class.getName());
+    private static final Path TIMETABLES_DIRECTORY = Path.of("timetables");
+    private static final int PROFILE_CACHE_CAPACITY = 8;
+    // Nombre de suggestions à partir duquel la liste est considérée comme assez restreinte
+    private static final int SPECULATION_THRESHOLD = 10;
+    private static final int SPECULATIVE_PROFILES = 2;
 
-    @Override
-    public void start(Stage stage) throws Exception {
-        // 1. Chargement des données horaires
-        TimeTable tt = new CachedTimeTable(FileTimeTable.in(Path.of("timetables/timetable-05-12")));
-        //TimeTable tt = new CachedTimeTable(FileTimeTable.in(Path.of("/Users/ruben/Downloads/rechor 4/timetables/timetable-05-05/2025-05-09")));
-
-
-        // 2. Création du StopIndex avec noms principaux + alias
-        Stations stations = tt.stations();
-        StationAliases aliases = tt.stationAliases();
-
-        Set<String> allNames = new HashSet<>();
-        List<String> primaryNames = new ArrayList<>();
-        Map<String, String> alternateNames = new HashMap<>();
-
-        for (int i = 0; i < stations.size(); i++) {
-            String stationName = stations.name(i);
-            primaryNames.add(stationName);
-            allNames.add(stationName);
-        }
-
-        for (int i = 0; i < aliases.size(); i++) {
-            String alias = aliases.alias(i);
-            String stationName = aliases.stationName(i);
-            if (!allNames.contains(alias)) {
-                alternateNames.put(alias, stationName);
-            }
-        }
+    private final ExecutorService routingExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "rechor-routing");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-        StopIndex stopIndex = new StopIndex(primaryNames, alternateNames);
+    // Calculs spéculatifs, lancés dans l'ordre des saisies
+    private final ExecutorService speculationExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rechor-speculation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Données propres à chaque instantané utilisé, accès sous le verrou de la table
+    private final Map<Path, Network> networks = new HashMap<>();
 
-        // 3. Création de l'interface de requête
-        QueryUI queryUI = QueryUI.create(stopIndex);
+    private TimeTableCatalog catalog;
+    private ObjectProperty<List<Journey>> journeysO;
+    private BooleanProperty routingO;
+    private Task<List<Journey>> currentTask;
+    private LocalDate currentDate;
+    private String currentDep;
+    private String currentArr;
 
-        // 4. Propriété contenant le profil mis en cache
-        ObjectProperty<Profile> profileCache = new SimpleObjectProperty<>();
-
-        // 5. Création de la valeur observable des voyages
-        journeysO = Bindings.createObjectBinding(() -> {
-            String dep = queryUI.depStopO().getValue();
-            String arr = queryUI.arrStopO().getValue();
-            LocalDate date = queryUI.dateO().getValue();
-
-            if (dep.isEmpty() || arr.isEmpty()) {
-                return List.of();
-            }
-
-            int depId = stationIdFromName(stations, dep);
-            int arrId = stationIdFromName(stations, arr);
-            if (depId == -1 || arrId == -1) return List.of();
-
-            Profile profile = profileCache.get();
-            if (profile == null || !profile.date().equals(date) || profile.arrStationId() != arrId) {
-                profile = new Router(tt).profile(date, arrId);
-                profileCache.set(profile);
-            }
+    @Override
+    public void start(Stage stage) {
+        long startNanos = System.nanoTime();
 
-            return JourneyExtractor.journeys(profile, depId);
-        }, queryUI.depStopO(), queryUI.arrStopO(), queryUI.dateO());
+        // 1. Création de l'interface, affichée avant le chargement des données ; les champs des
+        //    arrêts restent désactivés tant que l'index des arrêts n'est pas construit
+        ObjectProperty<StopIndex> stopIndexO = new SimpleObjectProperty<>();
+        QueryUI queryUI = QueryUI.create(stopIndexO);
 
-        // 6. Création des interfaces Summary et Detail
+        journeysO = new SimpleObjectProperty<>(List.of());
+        routingO = new SimpleBooleanProperty(true);
         ObservableValue<LocalTime> timeO = queryUI.timeO();
-        SummaryUI summaryUI = SummaryUI.create(journeysO, timeO);
+        SummaryUI summaryUI = SummaryUI.create(journeysO, timeO, routingO);
         DetailUI detailUI = DetailUI.create(summaryUI.selectedJourneyO());
 
-        // 7. Organisation de l’interface
         SplitPane centerPane = new SplitPane(summaryUI.rootNode(), detailUI.rootNode());
         BorderPane root = new BorderPane(centerPane);
         root.setTop(queryUI.rootNode());
@@ -100,19 +92,299 @@ public final class Main extends Application {
         stage.setMinWidth(800);
         stage.setMinHeight(600);
         stage.show();
+        logPhase("fenêtre", startNanos, startNanos);
+
+        // 2. Chargement en arrière-plan : le catalogue des horaires, puis simultanément l'index
+        //    des arrêts et le préchargement des liaisons du jour, chacun sous un bail de courte
+        //    durée ; chaque requête obtient ensuite son propre bail
+        CompletableFuture<TimeTableCatalog> catalogF = CompletableFuture.supplyAsync(
+                () -> timed("horaire", startNanos, Main::openCatalog), routingExecutor);
+        CompletableFuture<StopIndex> stopIndexF = catalogF.thenApplyAsync(
+                catalog -> timed("index des arrêts", startNanos, () -> {
+                    try (TimeTableCatalog.Lease lease = leaseToday(catalog)) {
+                        return StopIndexSnapshot.load(
+                                lease.directory(),
+                                lease.timeTable().stations(),
+                                lease.timeTable().stationAliases());
+                    }
+                }),
+                routingExecutor);
+        catalogF.thenAcceptAsync(
+                catalog -> timed("liaisons du jour", startNanos, () -> {
+                    try (TimeTableCatalog.Lease lease = catalog.lease(LocalDate.now())) {
+                        return lease.timeTable().connectionsFor(LocalDate.now()).size();
+                    }
+                }),
+                routingExecutor).exceptionally(e -> {
+                    LOGGER.log(Level.WARNING, "Préchargement impossible", e.getCause());
+                    return null;
+                });
 
-        // 8. Focus initial sur le champ de départ
-        Platform.runLater(() -> scene.lookup("#depStop").requestFocus());
+        // 3. Activation de la recherche une fois le catalogue et l'index prêts
+        catalogF.thenAcceptBoth(stopIndexF, (catalog, stopIndex) -> Platform.runLater(() -> {
+            connect(catalog, queryUI);
+            stopIndexO.set(stopIndex);
+            routingO.set(false);
+            scene.lookup("#depStop").requestFocus();
+            logPhase("prêt", startNanos, startNanos);
+        })).exceptionally(e -> {
+            LOGGER.log(Level.ERROR, "Démarrage impossible", e);
+            Platform.runLater(() -> routingO.set(false));
+            return null;
+        });
+    }
+
+    /** Relie les requêtes de l'interface au calcul des voyages dans les horaires du catalogue. */
+    private void connect(TimeTableCatalog catalog, QueryUI queryUI) {
+        this.catalog = catalog;
+
+        // Recalcul des voyages, hors du fil JavaFX, à chaque changement de requête
+        ChangeListener<Object> queryListener = (o, oldV, newV) -> updateJourneys(
+                queryUI.depStopO().getValue(),
+                queryUI.arrStopO().getValue(),
+                queryUI.dateO().getValue());
+        queryUI.depStopO().addListener(queryListener);
+        queryUI.arrStopO().addListener(queryListener);
+        queryUI.dateO().addListener(queryListener);
+
+        // Calcul spéculatif des profils des premières suggestions pendant la saisie de l'arrivée
+        queryUI.arrCandidatesO().addListener((o, oldV, newV) -> speculate(
+                newV,
+                queryUI.dateO().getValue()));
+    }
+
+    /** Ouvre le catalogue des instantanés d'horaire. */
+    private static TimeTableCatalog openCatalog() {
+        try {
+            return TimeTableCatalog.in(TIMETABLES_DIRECTORY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retourne un bail sur l'instantané d'horaire servant la date du jour, ou sur le plus
+     * récent si aucun ne la contient.
+     */
+    private static TimeTableCatalog.Lease leaseToday(TimeTableCatalog catalog) {
+        try {
+            return catalog.lease(LocalDate.now());
+        } catch (NoSuchElementException e) {
+            return catalog.latest();
+        }
+    }
+
+    /**
+     * Données propres à un instantané : son horaire, les identifiants de ses gares par nom, son
+     * cache de profils et l'état des calculs lancés, qui n'a de sens que dans cet instantané.
+     */
+    private static final class Network {
+        private final FileTimeTable timeTable;
+        private final Map<String, Integer> stationIds;
+        private final ProfileCache profileCache;
+        private LocalDate currentDate;
+        private int currentArrId = -1;
+        private LocalDate speculationDate;
+        private Set<Integer> speculativeIds = Set.of();
+
+        Network(FileTimeTable timeTable, ExecutorService executor) {
+            this.timeTable = timeTable;
+            Stations stations = timeTable.stations();
+            Map<String, Integer> ids = new HashMap<>();
+            for (int i = 0; i < stations.size(); i++) ids.putIfAbsent(stations.name(i), i);
+            this.stationIds = Map.copyOf(ids);
+            this.profileCache = new ProfileCache(new Router(timeTable), executor, PROFILE_CACHE_CAPACITY);
+        }
+
+        int stationId(String name) {
+            return name == null ? -1 : stationIds.getOrDefault(name, -1);
+        }
+    }
+
+    /**
+     * Retourne les données de l'instantané du bail donné, en les créant si nécessaire, et
+     * oublie celles des instantanés fermés depuis, en annulant leurs calculs en cours.
+     */
+    private Network network(TimeTableCatalog.Lease lease) {
+        synchronized (networks) {
+            Iterator<Network> it = networks.values().iterator();
+            while (it.hasNext()) {
+                Network network = it.next();
+                if (!catalog.isOpen(network.timeTable)) {
+                    network.profileCache.cancelAllExcept(null);
+                    it.remove();
+                }
+            }
+            Network network = networks.get(lease.directory());
+            // Un instantané rouvert a un nouvel horaire, et donc de nouveaux identifiants
+            if (network == null || network.timeTable != lease.timeTable()) {
+                network = new Network(lease.timeTable(), routingExecutor);
+                networks.put(lease.directory(), network);
+            }
+            return network;
+        }
+    }
+
+    /** Exécute une phase du démarrage et journalise sa durée. */
+    private static <T> T timed(String phase, long startNanos, Supplier<T> work) {
+        long phaseNanos = System.nanoTime();
+        T result = work.get();
+        logPhase(phase, startNanos, phaseNanos);
+        return result;
+    }
+
+    private static void logPhase(String phase, long startNanos, long phaseNanos) {
+        long now = System.nanoTime();
+        LOGGER.log(Level.INFO, () -> String.format("Démarrage, %s : %d ms (%d ms depuis le lancement)",
+                phase, (now - phaseNanos) / 1_000_000, (now - startNanos) / 1_000_000));
+    }
+
+    /** Annule les calculs en cours dans les instantanés autres que celui donné. */
+    private void cancelAllExcept(Network kept) {
+        synchronized (networks) {
+            for (Network network : networks.values())
+                if (network != kept) network.profileCache.cancelAllExcept(null);
+        }
+    }
+
+    @Override
+    public void stop() {
+        routingExecutor.shutdownNow();
+        speculationExecutor.shutdownNow();
+        if (catalog != null) catalog.close();
     }
 
     public static void main(String[] args) {
         launch(args);
     }
 
-    private static int stationIdFromName(Stations stations, String name) {
-        for (int i = 0; i < stations.size(); i++) {
-            if (stations.name(i).equals(name)) return i;
+    /**
+     * Lance, en arrière-plan, le calcul des voyages correspondant à la requête donnée,
+     * en annulant le calcul de la requête précédente s'il n'est pas terminé.
+     * Le calcul obtient un bail sur l'instantané servant la date de la requête, qu'il ferme à
+     * sa fin. Le profil est réutilisé s'il est déjà calculé ou en cours de calcul, qu'il soit
+     * ancré à la gare d'arrivée ou à celle de départ. Sinon, un profil ancré au départ est
+     * calculé lorsque seule l'arrivée a changé, car l'utilisateur explore alors
+     * vraisemblablement plusieurs destinations depuis le même départ.
+     */
+    private void updateJourneys(String dep, String arr, LocalDate date) {
+        if (currentTask != null) currentTask.cancel(true);
+        currentTask = null;
+
+        boolean onlyArrChanged = date != null && date.equals(currentDate)
+                && Objects.equals(dep, currentDep) && !Objects.equals(arr, currentArr);
+        currentDate = date;
+        currentDep = dep;
+        currentArr = arr;
+        if (dep == null || arr == null || date == null) {
+            routingO.set(false);
+            journeysO.set(List.of());
+            return;
+        }
+
+        Task<List<Journey>> task = new Task<>() {
+            @Override
+            protected List<Journey> call() throws Exception {
+                try (TimeTableCatalog.Lease lease = catalog.lease(date)) {
+                    Network network = network(lease);
+                    int depId = network.stationId(dep);
+                    int arrId = network.stationId(arr);
+                    if (depId == -1 || arrId == -1) return List.of();
+
+                    ProfileCache profileCache = network.profileCache;
+                    Future<DepartureProfile> departureProfile = null;
+                    Future<Profile> profile = null;
+                    synchronized (network) {
+                        // Une requête remplacée ne doit pas annuler les calculs de la suivante
+                        if (isCancelled()) throw new CancellationException();
+                        network.currentDate = date;
+                        network.currentArrId = arrId;
+                        boolean useDeparture = !profileCache.hasProfile(date, arrId)
+                                && (profileCache.hasDepartureProfile(date, depId) || onlyArrChanged);
+                        if (useDeparture) {
+                            departureProfile = profileCache.departureProfile(date, depId);
+                            profileCache.cancelAllExcept(departureProfile);
+                        } else {
+                            profile = profileCache.profile(date, arrId);
+                            profileCache.cancelAllExcept(profile);
+                        }
+                        cancelAllExcept(network);
+                    }
+                    // Chaque ligne de la vue synthétique montre la destination de la première
+                    // course et un marqueur par changement : les voyages sont extraits en entier
+                    return departureProfile != null
+                            ? JourneyExtractor.journeysTo(departureProfile.get(), arrId)
+                            : JourneyExtractor.journeys(profile.get(), depId);
+                } catch (NoSuchElementException e) {
+                    // Aucun instantané ne contient la date de la requête
+                    return List.of();
+                }
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (task != currentTask) return;
+            routingO.set(false);
+            journeysO.set(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            if (task != currentTask) return;
+            routingO.set(false);
+            journeysO.set(List.of());
+            if (!(task.getException() instanceof CancellationException))
+                LOGGER.log(Level.ERROR, "Calcul des voyages impossible", task.getException());
+        });
+
+        currentTask = task;
+        routingO.set(true);
+        routingExecutor.execute(task);
+    }
+
+    /**
+     * Démarre, en arrière-plan, le calcul des profils des premières suggestions du champ
+     * d'arrivée lorsque leur liste est assez restreinte, et annule ceux des suggestions
+     * précédentes qui ne sont plus proposées. Un profil ainsi calculé reste dans le cache
+     * et est directement réutilisé si l'utilisateur choisit l'arrêt correspondant.
+     */
+    private void speculate(List<String> candidates, LocalDate date) {
+        // La liste est vidée lors de la validation du champ : le choix fait alors foi
+        if (candidates.isEmpty() || date == null) return;
+        List<String> names = candidates.size() <= SPECULATION_THRESHOLD
+                ? List.copyOf(candidates.subList(0, Math.min(SPECULATIVE_PROFILES, candidates.size())))
+                : List.of();
+        String dep = currentDep;
+
+        speculationExecutor.execute(() -> {
+            try (TimeTableCatalog.Lease lease = catalog.lease(date)) {
+                speculate(network(lease), names, dep, date);
+            } catch (NoSuchElementException e) {
+                // Aucun instantané ne contient la date de la requête
+            }
+        });
+    }
+
+    private static void speculate(Network network, List<String> names, String dep, LocalDate date) {
+        ProfileCache profileCache = network.profileCache;
+        synchronized (network) {
+            // Un profil ancré au départ couvre déjà toutes les arrivées possibles
+            int depId = network.stationId(dep);
+            if (depId != -1 && profileCache.hasDepartureProfile(date, depId)) return;
+
+            Set<Integer> ids = new HashSet<>();
+            for (String name : names) {
+                int id = network.stationId(name);
+                if (id != -1) ids.add(id);
+            }
+
+            for (int id : network.speculativeIds) {
+                boolean current = id == network.currentArrId
+                        && network.speculationDate.equals(network.currentDate);
+                if (!current && !(ids.contains(id) && network.speculationDate.equals(date)))
+                    profileCache.cancel(network.speculationDate, id);
+            }
+            for (int id : ids) profileCache.profile(date, id);
+
+            network.speculativeIds = ids;
+            network.speculationDate = date;
         }
-        return -1;
     }
 }
@@ -14,17 +14,27 @@ import javafx.util.converter.LocalTimeStringConverter;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 public record QueryUI(Node rootNode,
                       ObservableValue<String> depStopO,
                       ObservableValue<String> arrStopO,
                       ObservableValue<LocalDate> dateO,
-                      ObservableValue<LocalTime> timeO) {
+                      ObservableValue<LocalTime> timeO,
+                      ObservableValue<List<String>> arrCandidatesO) {
 
     public static QueryUI create(StopIndex index) {
+        return create(new SimpleObjectProperty<>(index));
+    }
+
+    /**
+     * Crée l'interface de requête utilisant l'index contenu dans la valeur observable donnée ;
+     * les champs des arrêts sont désactivés tant que cette valeur est nulle.
+     */
+    public static QueryUI create(ObservableValue<StopIndex> indexO) {
         // Création des StopFields
-        StopField depField = StopField.create(index);
-        StopField arrField = StopField.create(index);
+        StopField depField = StopField.create(indexO);
+        StopField arrField = StopField.create(indexO);
 
         depField.textField().setId("depStop");
 
@@ -69,6 +79,7 @@ public record QueryUI(Node rootNode,
                 depField.stopO(),
                 arrField.stopO(),
                 datePicker.valueProperty(),
-                timeFormatter.valueProperty());
+                timeFormatter.valueProperty(),
+                arrField.candidatesO());
     }
 }
@@ -1,6 +1,7 @@
 package ch.epfl.rechor.gui;
 
 import ch.epfl.rechor.StopIndex;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -11,14 +12,34 @@ import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.stage.Popup;
 
-public record StopField(TextField textField, ObservableValue<String> stopO) {
+import java.util.List;
+
+/**
+ * Champ de saisie d'un arrêt, avec liste de suggestions.
+ * La valeur observable candidatesO contient les suggestions affichées pendant la saisie,
+ * et est vide lorsque le champ n'a pas le focus.
+ */
+public record StopField(TextField textField,
+                        ObservableValue<String> stopO,
+                        ObservableValue<List<String>> candidatesO) {
 
     public static StopField create(StopIndex stopIndex) {
+        return create(new SimpleObjectProperty<>(stopIndex));
+    }
+
+    /**
+     * Crée un champ utilisant l'index contenu dans la valeur observable donnée. Le champ est
+     * désactivé tant que cette valeur est nulle, p. ex. pendant la construction de l'index.
+     */
+    public static StopField create(ObservableValue<StopIndex> stopIndexO) {
         TextField textField = new TextField();
+        textField.setDisable(stopIndexO.getValue() == null);
+        stopIndexO.addListener((o, oldIndex, newIndex) -> textField.setDisable(newIndex == null));
         //j suis pas sur
         textField.setId("depStop");
 
         SimpleStringProperty selectedStop = new SimpleStringProperty("");
+        SimpleObjectProperty<List<String>> candidates = new SimpleObjectProperty<>(List.of());
 
         ObservableList<String> results = FXCollections.observableArrayList();
         ListView<String> resultList = new ListView<>(results);
@@ -55,10 +76,11 @@ public record StopField(TextField textField, ObservableValue<String> stopO) {
 
         // Listener de texte (mise à jour des résultats)
         final var textListener = (javafx.beans.value.ChangeListener<String>) (obs, oldText, newText) -> {
-            results.setAll(stopIndex.stopsMatching(newText, 30));
+            results.setAll(stopIndexO.getValue().stopsMatching(newText, 30));
             if (!results.isEmpty()) {
                 resultList.getSelectionModel().selectFirst();
             }
+            candidates.set(List.copyOf(results));
         };
 
         // Listener de position (pour popup sous le champ)
@@ -73,10 +95,11 @@ public record StopField(TextField textField, ObservableValue<String> stopO) {
         // Focus listener
         textField.focusedProperty().addListener((obs, wasFocused, isNowFocused) -> {
             if (isNowFocused) {
-                results.setAll(stopIndex.stopsMatching(textField.getText(), 30));
+                results.setAll(stopIndexO.getValue().stopsMatching(textField.getText(), 30));
                 if (!results.isEmpty()) {
                     resultList.getSelectionModel().selectFirst();
                 }
+                candidates.set(List.copyOf(results));
                 popup.show(textField.getScene().getWindow());
                 textField.textProperty().addListener(textListener);
                 textField.boundsInLocalProperty().addListener(boundsListener);
@@ -93,10 +116,11 @@ public record StopField(TextField textField, ObservableValue<String> stopO) {
                     textField.setText("");
                     selectedStop.set("");
                 }
+                candidates.set(List.of());
             }
         });
 
-        return new StopField(textField, selectedStop);
+        return new StopField(textField, selectedStop, candidates);
     }
 
     public void setTo(String stopName) {
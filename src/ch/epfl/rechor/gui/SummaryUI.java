@@ -4,6 +4,7 @@ import ch.epfl.rechor.FormatterFr;
 import ch.epfl.rechor.journey.Journey;
 import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -12,16 +13,20 @@ import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Text;
 
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -34,6 +39,7 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
     private static final int CELL_PADDING = 6;
     private static final int GRAPH_MARGIN = 10;
     private static final int CIRCLE_RADIUS = 3;
+    private static final int PROGRESS_SIZE = 48;
 
     private static class CellRenderer extends ListCell<Journey> {
         private final BorderPane layout;
@@ -45,6 +51,14 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
         private final Text endLabel;
         private final HBox durationBox;
         private final Text durationLabel;
+        private final Line track;
+        private final Circle startCircle;
+        private final Circle endCircle;
+        // Marqueurs de changement, réutilisés d'un trajet à l'autre ; seuls les
+        // transferCount premiers sont visibles, aux positions transferPositions
+        private final List<Circle> transferMarks = new ArrayList<>();
+        private double[] transferPositions = new double[4];
+        private int transferCount;
 
         CellRenderer() {
             iconView = new ImageView();
@@ -63,6 +77,12 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
             durationBox = new HBox(durationLabel);
             durationBox.getStyleClass().add("duration");
 
+            track = new Line();
+            startCircle = new Circle(CIRCLE_RADIUS);
+            endCircle = new Circle(CIRCLE_RADIUS);
+            startCircle.getStyleClass().add("dep-arr");
+            endCircle.getStyleClass().add("dep-arr");
+
             graphArea = new Pane() {
                 @Override
                 protected void layoutChildren() {
@@ -71,23 +91,19 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
                     double leftX = GRAPH_MARGIN;
                     double rightX = getWidth() - GRAPH_MARGIN;
 
-                    for (Node child : getChildren()) {
-                        if (child instanceof Circle circle) {
-                            Double frac = (Double) circle.getUserData();
-                            if (frac == null) continue;
-                            double x = leftX + frac * (rightX - leftX);
-                            circle.setCenterX(x);
-                            circle.setCenterY(midY);
-                        } else if (child instanceof Line line) {
-                            line.setStartX(leftX);
-                            line.setStartY(midY);
-                            line.setEndX(rightX);
-                            line.setEndY(midY);
-                        }
+                    track.setStartX(leftX);
+                    track.setStartY(midY);
+                    track.setEndX(rightX);
+                    track.setEndY(midY);
+                    place(startCircle, leftX, midY);
+                    place(endCircle, rightX, midY);
+                    for (int i = 0; i < transferCount; i++) {
+                        place(transferMarks.get(i), leftX + transferPositions[i] * (rightX - leftX), midY);
                     }
                 }
             };
             graphArea.setPrefSize(0, 0);
+            graphArea.getChildren().addAll(track, startCircle, endCircle);
 
             layout = new BorderPane();
             layout.setTop(headerBox);
@@ -106,18 +122,7 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
                 setText(null);
                 setGraphic(null);
             } else {
-                graphArea.getChildren().clear();
-                Line track = new Line();
-                graphArea.getChildren().add(track);
-
-                Circle startCircle = new Circle(CIRCLE_RADIUS);
-                Circle endCircle = new Circle(CIRCLE_RADIUS);
-                startCircle.getStyleClass().add("dep-arr");
-                endCircle.getStyleClass().add("dep-arr");
-                startCircle.setUserData(0d);
-                endCircle.setUserData(1d);
-                graphArea.getChildren().addAll(startCircle, endCircle);
-
+                int count = 0;
                 Journey.Leg.Transport firstLeg = null;
                 for (Journey.Leg leg : journey.legs()) {
                     if (leg instanceof Journey.Leg.Transport t && firstLeg == null) {
@@ -125,12 +130,13 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
                     } else if (leg instanceof Journey.Leg.Foot f) {
                         double pos = (double) Duration.between(journey.depTime(), f.depTime()).toNanos()
                                 / journey.duration().toNanos();
-                        Circle transferMark = new Circle(CIRCLE_RADIUS);
-                        transferMark.getStyleClass().add("transfer");
-                        transferMark.setUserData(pos);
-                        graphArea.getChildren().add(transferMark);
+                        if (count == transferPositions.length) {
+                            transferPositions = Arrays.copyOf(transferPositions, 2 * count);
+                        }
+                        transferPositions[count++] = pos;
                     }
                 }
+                showTransferMarks(count);
 
                 if (firstLeg != null) {
                     headerLabel.setText(FormatterFr.formatRouteDestination(firstLeg));
@@ -144,17 +150,53 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
                 setGraphic(layout);
             }
         }
+
+        /** Rend visibles les count premiers marqueurs de changement, en en créant au besoin. */
+        private void showTransferMarks(int count) {
+            while (transferMarks.size() < count) {
+                Circle transferMark = new Circle(CIRCLE_RADIUS);
+                transferMark.getStyleClass().add("transfer");
+                transferMarks.add(transferMark);
+                graphArea.getChildren().add(transferMark);
+            }
+            for (int i = 0; i < transferMarks.size(); i++) {
+                transferMarks.get(i).setVisible(i < count);
+            }
+            transferCount = count;
+            graphArea.requestLayout();
+        }
+
+        private static void place(Circle circle, double x, double y) {
+            circle.setCenterX(x);
+            circle.setCenterY(y);
+        }
     }
 
     public static SummaryUI create(ObservableValue<List<Journey>> journeyStream,
                                    ObservableValue<LocalTime> timeStream) {
+        return create(journeyStream, timeStream, new SimpleBooleanProperty(false));
+    }
+
+    /**
+     * Crée la vue synthétique, avec un indicateur de progression affiché par-dessus
+     * la liste tant que la valeur observable busyStream vaut vrai.
+     */
+    public static SummaryUI create(ObservableValue<List<Journey>> journeyStream,
+                                   ObservableValue<LocalTime> timeStream,
+                                   ObservableValue<Boolean> busyStream) {
         ListView<Journey> listView = initListView(journeyStream, timeStream);
         listView.setCellFactory(view -> new CellRenderer());
         ObjectProperty<Journey> selectedProp = new SimpleObjectProperty<>();
         listView.getSelectionModel().selectedItemProperty().addListener((obs, oldV, newV) -> {
             selectedProp.set(newV);
         });
-        return new SummaryUI(listView, selectedProp);
+
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setMaxSize(PROGRESS_SIZE, PROGRESS_SIZE);
+        progress.setMouseTransparent(true);
+        progress.visibleProperty().bind(busyStream);
+
+        return new SummaryUI(new StackPane(listView, progress), selectedProp);
     }
 
     private static void selectByTime(ListView<Journey> listView,
@@ -177,6 +219,28 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
         }
     }
 
+    /**
+     * Modifie la liste donnée pour qu'elle soit égale à la nouvelle liste, en ne remplaçant que
+     * la plage comprise entre leur plus long préfixe commun et leur plus long suffixe commun, de
+     * sorte que les cellules des éléments inchangés ne soient pas mises à jour.
+     */
+    static <T> void replaceChanged(List<T> items, List<T> newItems) {
+        int oldSize = items.size();
+        int newSize = newItems.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize
+                && Objects.equals(items.get(prefix), newItems.get(prefix))) {
+            prefix += 1;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && Objects.equals(items.get(oldSize - 1 - suffix), newItems.get(newSize - 1 - suffix))) {
+            suffix += 1;
+        }
+        if (prefix < oldSize - suffix) items.subList(prefix, oldSize - suffix).clear();
+        if (prefix < newSize - suffix) items.addAll(prefix, newItems.subList(prefix, newSize - suffix));
+    }
+
     private static ListView<Journey> initListView(ObservableValue<List<Journey>> journeyStream,
                                                   ObservableValue<LocalTime> timeStream) {
         ObservableList<Journey> items = FXCollections.observableArrayList();
@@ -186,8 +250,7 @@ public record SummaryUI(Node rootNode, ObservableValue<Journey> selectedJourneyO
         }
         selectByTime(listView, journeyStream.getValue(), timeStream.getValue());
         journeyStream.addListener((obs, oldV, newV) -> {
-            items.clear();
-            items.addAll(newV);
+            replaceChanged(items, newV);
             selectByTime(listView, newV, timeStream.getValue());
         });
         timeStream.addListener((obs, oldV, newV) -> {
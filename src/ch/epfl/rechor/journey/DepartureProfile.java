@@ -0,0 +1,89 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Trips;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Représente un profil ancré à la gare de départ : pour chaque gare, le front de Pareto
+ * des voyages partant de la gare de départ et arrivant à cette gare.
+ *
+ * Afin de réutiliser telles quelles les règles de dominance de {@link PackedCriteria},
+ * les heures des critères sont stockées « en miroir » (voir {@link #mirror(int)}) :
+ * le champ d'heure d'arrivée contient l'heure de départ de la gare de départ, et le
+ * champ d'heure de départ contient l'heure d'arrivée à la gare du front. La charge utile
+ * contient l'index de la liaison d'embarquement de la dernière étape, sur 24 bits, et le
+ * nombre d'arrêts intermédiaires de cette étape, sur 8 bits.
+ *
+ * Comme pour {@link Profile}, les liaisons et les courses du jour sont obtenues une seule fois,
+ * et les arrêts et heures des voyages extraits sont partagés par toutes les extractions.
+ */
+public record DepartureProfile(
+        TimeTable timeTable,
+        LocalDate date,
+        int depStationId,
+        List<ParetoFront> stationFront,
+        Connections connections,
+        Trips trips,
+        JourneyMaterials materials) {
+
+    /** Somme des bornes de l'intervalle d'heures représentables, [-240, 2879]. */
+    private static final int MIRROR_SUM = -240 + 2879;
+
+    /**
+     * Constructeur de DepartureProfile qui crée une copie immuable de la liste stationFront.
+     */
+    public DepartureProfile {
+        stationFront = List.copyOf(stationFront);
+        Objects.requireNonNull(connections);
+        Objects.requireNonNull(trips);
+        Objects.requireNonNull(materials);
+    }
+
+    /**
+     * Constructeur de DepartureProfile dont les arrêts et heures des voyages extraits sont
+     * encore à construire.
+     */
+    public DepartureProfile(TimeTable timeTable, LocalDate date, int depStationId,
+                            List<ParetoFront> stationFront, Connections connections, Trips trips) {
+        this(timeTable, date, depStationId, stationFront, connections, trips,
+                new JourneyMaterials(timeTable, date));
+    }
+
+    /**
+     * Constructeur de DepartureProfile obtenant de l'horaire les liaisons et les courses du jour.
+     */
+    public DepartureProfile(TimeTable timeTable, LocalDate date, int depStationId,
+                            List<ParetoFront> stationFront) {
+        this(timeTable, date, depStationId, stationFront,
+                timeTable.connectionsFor(date), timeTable.tripsFor(date));
+    }
+
+    /**
+     * Retourne l'heure « miroir » de l'heure donnée, qui inverse l'ordre des heures
+     * tout en restant dans l'intervalle des heures représentables. Cette opération
+     * est sa propre inverse.
+     *
+     * @param mins l'heure, en minutes après minuit
+     * @return l'heure miroir
+     */
+    public static int mirror(int mins) {
+        return MIRROR_SUM - mins;
+    }
+
+    /**
+     * Récupère le front de Pareto d'une gare donnée.
+     * @param stationId L'identifiant de la gare.
+     * @return Le front de Pareto des voyages arrivant à cette gare.
+     */
+    public ParetoFront forStation(int stationId) {
+        return stationFront.get(stationId);
+    }
+}
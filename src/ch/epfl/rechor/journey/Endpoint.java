@@ -0,0 +1,88 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.StationGrid;
+import ch.epfl.rechor.timetable.Stations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Extrémité d'un voyage située hors du réseau, p. ex. une adresse : un pseudo-arrêt, qui
+ * apparaît comme départ de la première étape ou arrivée de la dernière étape des voyages, et les
+ * gares depuis (ou vers) lesquelles on peut le rejoindre à pied, avec la durée de la marche.
+ *
+ * @param stop  le pseudo-arrêt représentant la position
+ * @param seeds les gares accessibles à pied depuis ou vers la position
+ */
+public record Endpoint(Stop stop, List<Endpoint.Seed> seeds) {
+
+    /**
+     * Constructeur de Endpoint qui crée une copie immuable de la liste des gares.
+     *
+     * @throws NullPointerException     si le pseudo-arrêt est null
+     * @throws IllegalArgumentException si la liste des gares est vide
+     */
+    public Endpoint {
+        Objects.requireNonNull(stop);
+        seeds = List.copyOf(seeds);
+        Preconditions.checkArgument(!seeds.isEmpty());
+    }
+
+    /**
+     * Gare accessible à pied depuis ou vers la position d'une extrémité.
+     *
+     * @param stationId l'index de la gare
+     * @param minutes   la durée de la marche entre la gare et la position, en minutes
+     */
+    public record Seed(int stationId, int minutes) {
+
+        /**
+         * Constructeur de Seed.
+         *
+         * @throws IllegalArgumentException si l'index de la gare ou la durée est négatif
+         */
+        public Seed {
+            Preconditions.checkArgument(stationId >= 0 && minutes >= 0);
+        }
+    }
+
+    /**
+     * Construit l'extrémité située à la position donnée, reliée à pied à toutes les gares situées
+     * à au plus la distance donnée, avec une durée de marche estimée à partir de la distance.
+     *
+     * @param stations     les gares de l'horaire
+     * @param name         le nom du pseudo-arrêt
+     * @param lon          la longitude de la position, en degrés
+     * @param lat          la latitude de la position, en degrés
+     * @param radiusMeters la distance maximale de marche, en mètres
+     * @return l'extrémité située à la position donnée
+     * @throws IllegalArgumentException si aucune gare n'est située à au plus cette distance
+     */
+    public static Endpoint near(Stations stations, String name, double lon, double lat, double radiusMeters) {
+        StationGrid grid = stations.grid();
+        List<Seed> seeds = new ArrayList<>();
+        for (int id : grid.within(lon, lat, radiusMeters))
+            seeds.add(new Seed(id, StationGrid.walkingMinutes(grid.distance(id, lon, lat))));
+        return new Endpoint(new Stop(name, null, lon, lat), seeds);
+    }
+
+    /**
+     * Retourne la plus courte durée de marche entre la gare donnée et la position.
+     *
+     * @param stationId l'index de la gare
+     * @return la durée de la marche, en minutes, ou -1 si la gare n'est pas accessible à pied
+     */
+    public int minutes(int stationId) {
+        int best = -1;
+        for (Seed seed : seeds) {
+            if (seed.stationId() == stationId && (best < 0 || seed.minutes() < best))
+                best = seed.minutes();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,182 @@
+package ch.epfl.rechor.journey;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encodeur GeoJSON des tracés de voyages, écrivant directement les octets du document dans un
+ * flot, au travers d'un tampon de taille fixe vidé dans le flot lorsqu'il est plein et à la fin
+ * de chaque document.
+ *
+ * Les coordonnées sont arrondies à 5 décimales et écrites en virgule fixe, sous la même forme que
+ * {@link Double#toString(double)} l'aurait fait de la valeur arrondie, de sorte que le document
+ * produit pour un voyage est identique à celui de {@link JourneyGeoJsonConverter}. Un document
+ * GeoJSON ne contenant que des caractères ASCII, chaque caractère occupe un octet.
+ *
+ * Un encodeur est destiné à un flot, p. ex. le corps d'une réponse HTTP, et ses instances ne
+ * peuvent pas être partagées entre threads.
+ */
+public final class GeoJsonEncoder {
+    private static final byte[] LINE_STRING = ascii("{\"type\":\"LineString\",\"coordinates\":[");
+    private static final byte[] COLLECTION = ascii("{\"type\":\"FeatureCollection\",\"features\":[");
+    private static final byte[] FEATURE = ascii("{\"type\":\"Feature\",\"properties\":{},\"geometry\":");
+    private static final int BUFFER_SIZE = 1 << 10;
+    private static final long SCALE = 100_000;
+    // Plus petite valeur absolue non nulle que Double.toString n'écrit pas en notation scientifique
+    private static final long MIN_PLAIN = SCALE / 1_000;
+    private static final long MAX_PLAIN = 10_000_000 * SCALE;
+    // Marque l'absence de position écrite dans le tracé en cours
+    private static final long NO_POSITION = Long.MIN_VALUE;
+
+    private final OutputStream out;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private int size;
+    // Coordonnées de la dernière position écrite, en cent-millièmes de degré
+    private long lastLon;
+    private long lastLat;
+
+    /**
+     * Construit un encodeur écrivant ses documents dans le flot donné.
+     *
+     * @param out le flot
+     */
+    public GeoJsonEncoder(OutputStream out) {
+        this.out = Objects.requireNonNull(out);
+    }
+
+    /**
+     * Écrit dans le flot le tracé du voyage donné, sous la forme d'une géométrie
+     * {@code LineString}.
+     *
+     * @param journey le voyage
+     * @return cet encodeur
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public GeoJsonEncoder lineString(Journey journey) throws IOException {
+        appendLineString(journey);
+        drain();
+        return this;
+    }
+
+    /**
+     * Écrit dans le flot les tracés des voyages donnés, sous la forme d'une collection
+     * d'entités ({@code FeatureCollection}), chacune ayant pour géométrie le tracé d'un voyage,
+     * dans l'ordre de la liste.
+     *
+     * @param journeys les voyages
+     * @return cet encodeur
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public GeoJsonEncoder featureCollection(List<Journey> journeys) throws IOException {
+        append(COLLECTION);
+        for (int i = 0; i < journeys.size(); i++) {
+            if (i > 0) append((byte) ',');
+            append(FEATURE);
+            appendLineString(journeys.get(i));
+            append((byte) '}');
+        }
+        append((byte) ']');
+        append((byte) '}');
+        drain();
+        return this;
+    }
+
+    private void appendLineString(Journey journey) throws IOException {
+        append(LINE_STRING);
+        lastLon = NO_POSITION;
+        lastLat = NO_POSITION;
+        boolean first = true;
+        for (Journey.Leg leg : journey.legs()) {
+            if (first) {
+                appendStop(leg.depStop());
+                first = false;
+            }
+            for (Journey.Leg.IntermediateStop istop : leg.intermediateStops()) {
+                appendStop(istop.stop());
+            }
+            appendStop(leg.arrStop());
+        }
+        append((byte) ']');
+        append((byte) '}');
+    }
+
+    private void appendStop(Stop stop) throws IOException {
+        long lon = Math.round(stop.longitude() * SCALE);
+        long lat = Math.round(stop.latitude() * SCALE);
+        if (lon == lastLon && lat == lastLat) return;
+
+        if (lastLon != NO_POSITION) append((byte) ',');
+        append((byte) '[');
+        appendFixed(lon);
+        append((byte) ',');
+        appendFixed(lat);
+        append((byte) ']');
+        lastLon = lon;
+        lastLat = lat;
+    }
+
+    /** Ajoute la valeur donnée, en cent-millièmes, comme Double.toString l'écrirait. */
+    private void appendFixed(long value) throws IOException {
+        long abs = Math.abs(value);
+        if (abs != 0 && (abs < MIN_PLAIN || abs >= MAX_PLAIN)) {
+            // Notation scientifique, hors du domaine des coordonnées géographiques
+            append(ascii(Double.toString(value / (double) SCALE)));
+            return;
+        }
+        if (value < 0) append((byte) '-');
+        appendDigits(abs / SCALE);
+        append((byte) '.');
+
+        int fraction = (int) (abs % SCALE);
+        int digits = 5;
+        while (digits > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            digits -= 1;
+        }
+        ensureCapacity(digits);
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        size += digits;
+    }
+
+    private void appendDigits(long value) throws IOException {
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) digits += 1;
+        ensureCapacity(digits);
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    private void append(byte b) throws IOException {
+        ensureCapacity(1);
+        bytes[size++] = b;
+    }
+
+    private void append(byte[] b) throws IOException {
+        ensureCapacity(b.length);
+        System.arraycopy(b, 0, bytes, size, b.length);
+        size += b.length;
+    }
+
+    /** Vide le tampon dans le flot s'il ne peut contenir extra octets de plus (au plus sa taille). */
+    private void ensureCapacity(int extra) throws IOException {
+        if (size + extra > bytes.length) drain();
+    }
+
+    private void drain() throws IOException {
+        out.write(bytes, 0, size);
+        size = 0;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
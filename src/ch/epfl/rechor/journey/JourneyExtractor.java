@@ -1,17 +1,17 @@
 package ch.epfl.rechor.journey;
 
-import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Bits32_24_8;
+import ch.epfl.rechor.Preconditions;
 import ch.epfl.rechor.timetable.Connections;
 import ch.epfl.rechor.timetable.Routes;
-import ch.epfl.rechor.timetable.Stations;
 import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Trips;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.LongPredicate;
 
 /**
  * @author Valentin Walendy (393413)
@@ -33,11 +33,173 @@ public final class JourneyExtractor {
      * @return List<Journey> liste des voyages optimaux
      */
     public static List<Journey> journeys(Profile profile, int depStationId) {
+        List<JourneySummary> summaries = summaries(profile, depStationId);
+        List<Journey> journeys = new ArrayList<>(summaries.size());
+        // Les arrêts et heures sont partagés par tous les voyages extraits du profil
+        Materializer materializer = new Materializer(profile.timeTable(), profile.connections(),
+                profile.trips(), profile.materials());
+        for (JourneySummary summary : summaries)
+            journeys.add(new Journey(
+                    extractLegs(profile, materializer, depStationId, summary.criteria())));
+        return journeys;
+    }
+
+
+    /**
+     * Retourne les résumés des voyages optimaux triés par heure de départ et d'arrivée,
+     * sans construire leurs étapes.
+     *
+     * @param profile      Profile itinéraire
+     * @param depStationId int identifiant de la gare de départ
+     * @return List<JourneySummary> résumés des voyages optimaux
+     */
+    public static List<JourneySummary> summaries(Profile profile, int depStationId) {
+        return summaries(profile, depStationId, packedCriteria -> true);
+    }
+
+
+    /**
+     * Retourne les résumés des voyages optimaux dont l'heure de départ est comprise dans
+     * l'intervalle donné, triés par heure de départ et d'arrivée.
+     *
+     * @param profile      Profile itinéraire
+     * @param depStationId int identifiant de la gare de départ
+     * @param fromMins     int début (inclus) de l'intervalle, en minutes après minuit
+     * @param toMins       int fin (exclue) de l'intervalle, en minutes après minuit
+     * @return List<JourneySummary> résumés des voyages partant dans l'intervalle
+     * @throws IllegalArgumentException si la fin de l'intervalle précède son début
+     */
+    public static List<JourneySummary> summaries(
+            Profile profile,
+            int depStationId,
+            int fromMins,
+            int toMins
+    ) {
+        Preconditions.checkArgument(fromMins <= toMins);
+        // L'heure de départ d'un résumé est comprise entre celle du critère et celle-ci
+        // augmentée du temps de changement à la gare de départ, compté par le profil.
+        int changeMins = Math.max(0, profile.timeTable().transfers()
+                .findMinutesBetween(depStationId, depStationId));
+        List<JourneySummary> summaries = summaries(profile, depStationId, packedCriteria -> {
+            int depMins = PackedCriteria.depMins(packedCriteria);
+            return depMins < toMins && depMins + changeMins >= fromMins;
+        });
+        summaries.removeIf(s -> s.depMins() < fromMins || s.depMins() >= toMins);
+        return summaries;
+    }
+
+
+    /**
+     * Retourne les résumés des voyages optimaux dont le critère est accepté par le filtre donné,
+     * triés par heure de départ et d'arrivée. Seuls ces critères sont suivis.
+     *
+     * @param profile      Profile itinéraire
+     * @param depStationId int identifiant de la gare de départ
+     * @param keep         LongPredicate filtre des critères packagés à résumer
+     * @return List<JourneySummary> résumés des voyages retenus
+     */
+    private static List<JourneySummary> summaries(
+            Profile profile,
+            int depStationId,
+            LongPredicate keep
+    ) {
+        TimeTable timeTable     = profile.timeTable();
+        Connections connections = profile.connections();
+        Trips trips             = profile.trips();
+
+        List<JourneySummary> summaries = new ArrayList<>();
+        profile.forStation(depStationId).forEach(packedCriteria -> {
+            if (keep.test(packedCriteria))
+                summaries.add(summarize(profile, timeTable, connections, trips, depStationId, packedCriteria));
+        });
+
+        summaries.sort(
+                Comparator.comparingInt(JourneySummary::depMins)
+                        .thenComparingInt(JourneySummary::arrMins)
+        );
+        return summaries;
+    }
+
+
+    /**
+     * Construit le voyage complet correspondant à un résumé.
+     *
+     * @param profile      Profile itinéraire dont le résumé est issu
+     * @param depStationId int identifiant de la gare de départ
+     * @param summary      JourneySummary résumé du voyage
+     * @return Journey voyage avec toutes ses étapes
+     */
+    public static Journey journey(Profile profile, int depStationId, JourneySummary summary) {
+        Materializer materializer = new Materializer(profile.timeTable(), profile.connections(),
+                profile.trips(), profile.materials());
+        return new Journey(extractLegs(profile, materializer, depStationId, summary.criteria()));
+    }
+
+
+    /**
+     * Extrait et retourne la liste des voyages optimaux partant de l'extrémité donnée, triés par
+     * heure de départ et d'arrivée. Les voyages partant de toutes les gares accessibles à pied
+     * depuis l'extrémité sont considérés ensemble, et seuls ceux qui restent optimaux une fois la
+     * marche d'accès comptée sont retournés ; leur première étape part de l'extrémité.
+     *
+     * @param profile Profile itinéraire
+     * @param origin  Endpoint extrémité de départ
+     * @return List<Journey> liste des voyages optimaux
+     */
+    public static List<Journey> journeys(Profile profile, Endpoint origin) {
+        List<Endpoint.Seed> seeds = origin.seeds();
+
+        // Fronts des gares accessibles réunis, avec la marche d'accès déduite de l'heure de départ
+        // et l'index de la gare dans la charge utile
+        ParetoFront.Builder front = new ParetoFront.Builder();
+        for (int i = 0; i < seeds.size(); i++) {
+            int seedIndex      = i;
+            Endpoint.Seed seed = seeds.get(i);
+            profile.forStation(seed.stationId()).forEach(packedCriteria -> {
+                int depMins = PackedCriteria.depMins(packedCriteria) - seed.minutes();
+                if (depMins < JourneyMaterials.MIN_MINS) return;
+                front.add(PackedCriteria.withPayload(
+                        PackedCriteria.withDepMins(PackedCriteria.withoutDepMins(packedCriteria), depMins),
+                        seedIndex));
+            });
+        }
+
         List<Journey> journeys = new ArrayList<>();
+        Materializer materializer = new Materializer(profile.timeTable(), profile.connections(),
+                profile.trips(), profile.materials());
+        front.forEach(packedCriteria -> {
+            Endpoint.Seed seed = seeds.get(PackedCriteria.payload(packedCriteria));
+            long stationCriteria = profile.forStation(seed.stationId()).get(
+                    PackedCriteria.arrMins(packedCriteria), PackedCriteria.changes(packedCriteria));
+            List<Journey.Leg> legs = extractLegs(profile, materializer, seed.stationId(), stationCriteria);
+            addAccessLeg(origin.stop(), seed.minutes(), legs);
+            journeys.add(new Journey(legs));
+        });
 
-        ParetoFront front = profile.forStation(depStationId);
+        journeys.sort(
+                Comparator.comparing(Journey::depTime)
+                        .thenComparing(Journey::arrTime)
+        );
+        return journeys;
+    }
+
+
+    /**
+     * Extrait et retourne la liste des voyages optimaux d'un profil ancré à la gare de départ
+     * vers la gare d'arrivée donnée, triés par heure de départ et d'arrivée.
+     *
+     * @param profile      DepartureProfile profil ancré à la gare de départ
+     * @param arrStationId int identifiant de la gare d'arrivée
+     * @return List<Journey> liste des voyages optimaux
+     */
+    public static List<Journey> journeysTo(DepartureProfile profile, int arrStationId) {
+        List<Journey> journeys = new ArrayList<>();
+        Materializer materializer = new Materializer(profile.timeTable(), profile.connections(),
+                profile.trips(), profile.materials());
+
+        ParetoFront front = profile.forStation(arrStationId);
         front.forEach(packedCriteria -> {
-            List<Journey.Leg> legs = extractLegs(profile, depStationId, packedCriteria);
+            List<Journey.Leg> legs = extractLegsTo(profile, materializer, arrStationId, packedCriteria);
             journeys.add(new Journey(legs));
         });
 
@@ -49,17 +211,76 @@ public final class JourneyExtractor {
         return journeys;
     }
 
+    /**
+     * Calcule le résumé d'un voyage en suivant ses liaisons, sans construire ses étapes.
+     * Les heures obtenues sont celles des étapes que construirait extractLegs.
+     *
+     * @param profile         Profile itinéraire
+     * @param timeTable       TimeTable horaire
+     * @param connections     Connections liaisons du jour
+     * @param trips           Trips courses du jour
+     * @param depStationId    int identifiant de la gare de départ
+     * @param initialCriteria long critère initial packagé
+     * @return JourneySummary résumé du voyage
+     */
+    private static JourneySummary summarize(
+            Profile profile,
+            TimeTable timeTable,
+            Connections connections,
+            Trips trips,
+            int depStationId,
+            long initialCriteria
+    ) {
+        int firstConn  = Bits32_24_8.unpack24(PackedCriteria.payload(initialCriteria));
+        int depMins    = connections.depMins(firstConn);
+        int firstSt    = timeTable.stationId(connections.depStopId(firstConn));
+        if (firstSt != depStationId) {
+            int walk = transferMinutes(timeTable, depStationId, firstSt);
+            if (walk >= 0) depMins -= walk;
+        }
+
+        int finalArrMins  = PackedCriteria.arrMins(initialCriteria);
+        int currentStopId = depStationId;
+        int arrMins       = 0;
+        for (int rem = PackedCriteria.changes(initialCriteria); rem >= 0; rem--) {
+            long crit = profile.forStation(timeTable.stationId(currentStopId)).get(finalArrMins, rem);
+            int payload = PackedCriteria.payload(crit);
+            int connId  = Bits32_24_8.unpack24(payload);
+            for (int i = 0; i < Bits32_24_8.unpack8(payload); i++)
+                connId = connections.nextConnectionId(connId);
+            currentStopId = connections.arrStopId(connId);
+            arrMins       = connections.arrMins(connId);
+        }
+
+        int lastSt = timeTable.stationId(currentStopId);
+        if (profile.destination() != null) {
+            arrMins += Math.max(0, profile.destination().minutes(lastSt));
+        } else if (lastSt != profile.arrStationId()) {
+            int walk = transferMinutes(timeTable, lastSt, profile.arrStationId());
+            if (walk >= 0) arrMins += walk;
+        }
+
+        return new JourneySummary(
+                initialCriteria,
+                depMins,
+                arrMins,
+                PackedCriteria.changes(initialCriteria),
+                timeTable.routes().name(trips.routeId(connections.tripId(firstConn))));
+    }
+
 
     /**
      * Extrait les étapes d'un voyage à partir d'un critère initial packagé.
      *
      * @param profile         Profile itinéraire
+     * @param materializer    Materializer constructeur des arrêts et heures
      * @param depStationId    int identifiant de la gare de départ
      * @param initialCriteria long critère initial packagé
      * @return List<Journey.Leg> liste des étapes du voyage
      */
     private static List<Journey.Leg> extractLegs(
             Profile profile,
+            Materializer materializer,
             int depStationId,
             long initialCriteria
     ) {
@@ -81,8 +302,7 @@ public final class JourneyExtractor {
                     false,
                     currentStopId,
                     depStopId0,
-                    timeTable,
-                    profile,
+                    materializer,
                     legs
             );
         }
@@ -105,26 +325,33 @@ public final class JourneyExtractor {
                         true,
                         currentStopId,
                         depStopId0,
-                        timeTable,
-                        profile,
+                        materializer,
                         legs
                 );
             }
 
-            connId = addTransportLeg(profile, timeTable, connId, skip, legs);
+            connId = addTransportLeg(materializer, connId, skip, legs);
 
             currentStopId  = connections.arrStopId(connId);
             currentArrMins = connections.arrMins(connId);
         }
 
-        if (timeTable.stationId(currentStopId) != profile.arrStationId()) {
+        if (profile.destination() != null) {
+            Endpoint destination = profile.destination();
+            int walk = Math.max(0, destination.minutes(timeTable.stationId(currentStopId)));
+            legs.add(new Journey.Leg.Foot(
+                    materializer.stop(currentStopId),
+                    materializer.time(currentArrMins),
+                    destination.stop(),
+                    materializer.time(currentArrMins + walk)
+            ));
+        } else if (timeTable.stationId(currentStopId) != profile.arrStationId()) {
             addFootLeg(
                     currentArrMins,
                     true,
                     currentStopId,
                     profile.arrStationId(),
-                    timeTable,
-                    profile,
+                    materializer,
                     legs
             );
         }
@@ -133,26 +360,96 @@ public final class JourneyExtractor {
     }
 
 
+    /**
+     * Extrait les étapes d'un voyage d'un profil ancré à la gare de départ, en partant
+     * du critère final packagé et en remontant les étapes jusqu'à la gare de départ.
+     *
+     * @param profile       DepartureProfile profil ancré à la gare de départ
+     * @param materializer  Materializer constructeur des arrêts et heures
+     * @param arrStationId  int identifiant de la gare d'arrivée
+     * @param finalCriteria long critère packagé du front de la gare d'arrivée
+     * @return List<Journey.Leg> liste des étapes du voyage
+     */
+    private static List<Journey.Leg> extractLegsTo(
+            DepartureProfile profile,
+            Materializer materializer,
+            int arrStationId,
+            long finalCriteria
+    ) {
+        List<Journey.Leg> legs  = new ArrayList<>();
+        TimeTable timeTable     = profile.timeTable();
+        Connections connections = profile.connections();
+
+        int mirroredDepMins = PackedCriteria.arrMins(finalCriteria);
+        int nextStopId      = arrStationId;
+        long crit           = finalCriteria;
+        int boardConn       = -1;
+
+        for (int rem = PackedCriteria.changes(finalCriteria); rem >= 0; rem--) {
+            if (rem != PackedCriteria.changes(finalCriteria)) {
+                int boardSt = timeTable.stationId(connections.depStopId(boardConn));
+                crit = profile.forStation(boardSt).get(mirroredDepMins, rem);
+            }
+
+            int payload = PackedCriteria.payload(crit);
+            boardConn   = Bits32_24_8.unpack24(payload);
+
+            List<Journey.Leg> part = new ArrayList<>();
+            int alightConn = addTransportLeg(
+                    materializer, boardConn, Bits32_24_8.unpack8(payload), part);
+            int alightStopId = connections.arrStopId(alightConn);
+
+            boolean lastLeg = rem == PackedCriteria.changes(finalCriteria);
+            if (!lastLeg || timeTable.stationId(alightStopId) != arrStationId) {
+                addFootLeg(
+                        connections.arrMins(alightConn),
+                        true,
+                        alightStopId,
+                        nextStopId,
+                        materializer,
+                        part
+                );
+            }
+
+            legs.addAll(0, part);
+            nextStopId = connections.depStopId(boardConn);
+        }
+
+        if (timeTable.stationId(nextStopId) != profile.depStationId()) {
+            List<Journey.Leg> part = new ArrayList<>();
+            addFootLeg(
+                    connections.depMins(boardConn),
+                    false,
+                    profile.depStationId(),
+                    nextStopId,
+                    materializer,
+                    part
+            );
+            legs.addAll(0, part);
+        }
+
+        return legs;
+    }
+
+
     /**
      * Ajoute une étape de transport avec arrêts intermédiaires.
      *
-     * @param profile      Profile itinéraire
-     * @param timeTable    TimeTable horaire
+     * @param materializer Materializer constructeur des arrêts et heures
      * @param connectionId int ID de la connexion courante
      * @param numStops     int nombre d'arrêts intermédiaires
      * @param legs         List<Journey.Leg> liste des étapes
      * @return int nouvel ID de connexion
      */
     private static int addTransportLeg(
-            Profile profile,
-            TimeTable timeTable,
+            Materializer materializer,
             int connectionId,
             int numStops,
             List<Journey.Leg> legs
     ) {
-        Connections connections = profile.connections();
-        Stations stations       = timeTable.stations();
-        Routes routes           = timeTable.routes();
+        Connections connections = materializer.connections;
+        Trips trips             = materializer.trips;
+        Routes routes           = materializer.timeTable.routes();
 
         int tripIndex   = connections.tripId(connectionId);
         int depStop0    = connections.depStopId(connectionId);
@@ -165,23 +462,23 @@ public final class JourneyExtractor {
 
             intermediates.add(
                     new Journey.Leg.IntermediateStop(
-                            buildStop(connections.depStopId(connectionId), timeTable, stations),
-                            convertTime(arrM, profile.date()),
-                            convertTime(connections.depMins(connectionId), profile.date())
+                            materializer.stop(connections.depStopId(connectionId)),
+                            materializer.time(arrM),
+                            materializer.time(connections.depMins(connectionId))
                     )
             );
         }
 
         int finalStop = connections.arrStopId(connectionId);
         Journey.Leg.Transport tLeg = new Journey.Leg.Transport(
-                buildStop(depStop0, timeTable, stations),
-                convertTime(initDepMins, profile.date()),
-                buildStop(finalStop, timeTable, stations),
-                convertTime(connections.arrMins(connectionId), profile.date()),
+                materializer.stop(depStop0),
+                materializer.time(initDepMins),
+                materializer.stop(finalStop),
+                materializer.time(connections.arrMins(connectionId)),
                 intermediates,
-                routes.vehicle(profile.trips().routeId(tripIndex)),
-                routes.name(profile.trips().routeId(tripIndex)),
-                profile.trips().destination(tripIndex)
+                routes.vehicle(trips.routeId(tripIndex)),
+                routes.name(trips.routeId(tripIndex)),
+                trips.destination(tripIndex)
         );
 
         legs.add(tLeg);
@@ -189,41 +486,6 @@ public final class JourneyExtractor {
     }
 
 
-    /**
-     * Construit un objet Stop à partir d'un identifiant d'arrêt.
-     *
-     * @param stopId    int ID de l'arrêt
-     * @param timeTable TimeTable horaire
-     * @param stations  Stations disponibles
-     * @return Stop instance du Stop
-     */
-    private static Stop buildStop(
-            int stopId,
-            TimeTable timeTable,
-            Stations stations
-    ) {
-        int stId = timeTable.stationId(stopId);
-        return new Stop(
-                stations.name(stId),
-                timeTable.platformName(stopId),
-                stations.longitude(stId),
-                stations.latitude(stId)
-        );
-    }
-
-
-    /**
-     * Convertit un nombre de minutes en LocalDateTime sur une date donnée.
-     *
-     * @param mins int nombre de minutes
-     * @param date LocalDate date de référence
-     * @return LocalDateTime instant converti
-     */
-    private static LocalDateTime convertTime(int mins, LocalDate date) {
-        return LocalDateTime.of(date, LocalTime.MIN).plusMinutes(mins);
-    }
-
-
     /**
      * Ajoute une étape à pied (Foot) au voyage selon le transfert.
      *
@@ -231,8 +493,7 @@ public final class JourneyExtractor {
      * @param isDepMins    boolean vrai si temps de départ
      * @param depStopId    int ID arrêt départ
      * @param arrStopId    int ID arrêt arrivée
-     * @param timeTable    TimeTable horaire
-     * @param profile      Profile itinéraire
+     * @param materializer Materializer constructeur des arrêts et heures
      * @param legs         List<Journey.Leg> étapes du voyage
      */
     private static void addFootLeg(
@@ -240,37 +501,94 @@ public final class JourneyExtractor {
             boolean isDepMins,
             int depStopId,
             int arrStopId,
-            TimeTable timeTable,
-            Profile profile,
+            Materializer materializer,
             List<Journey.Leg> legs
     ) {
-        int depSt = timeTable.stationId(depStopId);
-        int arrSt = timeTable.stationId(arrStopId);
-        int view  = timeTable.transfers().arrivingAt(arrSt);
-
-        for (int i = PackedRange.startInclusive(view);
-             i < PackedRange.endExclusive(view);
-             i++) {
-
-            if (timeTable.transfers().depStationId(i) == depSt) {
-                int d, a;
-                if (isDepMins) {
-                    d = mins;
-                    a = mins + timeTable.transfers().minutes(i);
-                } else {
-                    d = mins - timeTable.transfers().minutes(i);
-                    a = mins;
-                }
-
-                legs.add(new Journey.Leg.Foot(
-                        buildStop(depStopId, timeTable, timeTable.stations()),
-                        convertTime(d, profile.date()),
-                        buildStop(arrStopId, timeTable, timeTable.stations()),
-                        convertTime(a, profile.date())
-                ));
-
-                break;
-            }
+        TimeTable timeTable = materializer.timeTable;
+        int minutes = transferMinutes(
+                timeTable, timeTable.stationId(depStopId), timeTable.stationId(arrStopId));
+        if (minutes < 0) return;
+
+        int d = isDepMins ? mins : mins - minutes;
+        int a = isDepMins ? mins + minutes : mins;
+        legs.add(new Journey.Leg.Foot(
+                materializer.stop(depStopId),
+                materializer.time(d),
+                materializer.stop(arrStopId),
+                materializer.time(a)
+        ));
+    }
+
+
+    /**
+     * Fait partir le voyage donné de l'arrêt donné, rejoint à pied en la durée donnée : la
+     * marche d'accès est ajoutée à l'étape à pied initiale, ou en constitue une nouvelle.
+     *
+     * @param origin  Stop arrêt de départ
+     * @param minutes int durée de la marche d'accès
+     * @param legs    List<Journey.Leg> étapes du voyage
+     */
+    private static void addAccessLeg(Stop origin, int minutes, List<Journey.Leg> legs) {
+        Journey.Leg first = legs.get(0);
+        if (first instanceof Journey.Leg.Foot) {
+            legs.set(0, new Journey.Leg.Foot(
+                    origin, first.depTime().minusMinutes(minutes), first.arrStop(), first.arrTime()));
+        } else {
+            legs.add(0, new Journey.Leg.Foot(
+                    origin, first.depTime().minusMinutes(minutes), first.depStop(), first.depTime()));
+        }
+    }
+
+
+    /**
+     * Retourne la durée du changement entre deux gares.
+     *
+     * @param timeTable TimeTable horaire
+     * @param depSt     int ID gare de départ
+     * @param arrSt     int ID gare d'arrivée
+     * @return int durée du changement en minutes, ou -1 s'il n'existe pas
+     */
+    private static int transferMinutes(TimeTable timeTable, int depSt, int arrSt) {
+        return timeTable.transfers().findMinutesBetween(depSt, arrSt);
+    }
+
+
+    /**
+     * Données d'un profil utilisées pour construire les étapes de ses voyages : ses liaisons et
+     * ses courses, ainsi que ses arrêts et heures, partagés par toutes ses extractions.
+     */
+    private static final class Materializer {
+        private final TimeTable timeTable;
+        private final Connections connections;
+        private final Trips trips;
+        private final JourneyMaterials materials;
+
+        private Materializer(TimeTable timeTable, Connections connections, Trips trips,
+                             JourneyMaterials materials) {
+            this.timeTable   = timeTable;
+            this.connections = connections;
+            this.trips       = trips;
+            this.materials   = materials;
+        }
+
+        /**
+         * Retourne l'arrêt d'identifiant donné.
+         *
+         * @param stopId int ID de l'arrêt
+         * @return Stop instance du Stop
+         */
+        private Stop stop(int stopId) {
+            return materials.stop(stopId);
+        }
+
+        /**
+         * Convertit un nombre de minutes après minuit en LocalDateTime à la date du profil.
+         *
+         * @param mins int nombre de minutes
+         * @return LocalDateTime instant converti
+         */
+        private LocalDateTime time(int mins) {
+            return materials.time(mins);
         }
     }
 }
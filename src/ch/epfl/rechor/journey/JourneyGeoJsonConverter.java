@@ -1,47 +1,51 @@
 package ch.epfl.rechor.journey;
 
-import ch.epfl.rechor.Json;
-
-import java.util.ArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 
 public final class JourneyGeoJsonConverter {
     private JourneyGeoJsonConverter() {}
 
     public static String toGeoJson(Journey journey) {
-        List<Json> coordinates = new ArrayList<>();
-        double[] last = new double[]{Double.NaN, Double.NaN};
-        boolean first = true;
-
-        for (Journey.Leg leg : journey.legs()) {
-            if (first) {
-                addStop(coordinates, leg.depStop(), last);
-                first = false;
-            }
-            for (Journey.Leg.IntermediateStop istop : leg.intermediateStops()) {
-                addStop(coordinates, istop.stop(), last);
-            }
-            addStop(coordinates, leg.arrStop(), last);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new GeoJsonEncoder(out).lineString(journey);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
 
-        Json geo = new Json.JObject(Map.of(
-                "type", new Json.JString("LineString"),
-                "coordinates", new Json.JArray(coordinates)
-        ));
-        return geo.toString();
+    /**
+     * Écrit les octets du tracé du voyage donné, au format GeoJSON (donc en ASCII), directement
+     * dans le flot donné, au moyen d'un encodeur propre à cet appel.
+     *
+     * @param journey le voyage
+     * @param out     le flot, p. ex. le corps d'une réponse HTTP
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public static void toGeoJson(Journey journey, OutputStream out) throws IOException {
+        new GeoJsonEncoder(out).lineString(journey);
     }
 
-    private static void addStop(List<Json> coords, Stop stop, double[] last) {
-        double lon = Math.round(stop.longitude() * 1e5) / 1e5;
-        double lat = Math.round(stop.latitude() * 1e5) / 1e5;
-        if (Double.isNaN(last[0]) || lon != last[0] || Double.isNaN(last[1]) || lat != last[1]) {
-            coords.add(new Json.JArray(List.of(
-                    new Json.JNumber(lon),
-                    new Json.JNumber(lat)
-            )));
-            last[0] = lon;
-            last[1] = lat;
+    /**
+     * Retourne la collection GeoJSON des tracés des voyages donnés, chacun étant une entité
+     * dont la géométrie est celle que {@link #toGeoJson(Journey)} retourne pour ce voyage.
+     *
+     * @param journeys les voyages
+     * @return le document GeoJSON
+     */
+    public static String toGeoJson(List<Journey> journeys) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new GeoJsonEncoder(out).featureCollection(journeys);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return out.toString(StandardCharsets.US_ASCII);
     }
 }
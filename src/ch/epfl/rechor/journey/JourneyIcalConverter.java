@@ -2,9 +2,12 @@ package ch.epfl.rechor.journey;
 
 import ch.epfl.rechor.FormatterFr;
 import ch.epfl.rechor.IcalBuilder;
+import ch.epfl.rechor.IcalWriter;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.UUID;
@@ -25,38 +28,56 @@ public final class JourneyIcalConverter {
 
     public static String toIcalendar(Journey journey) {
         Objects.requireNonNull(journey);
+        StringBuilder sb = new StringBuilder();
+        try {
+            toIcalendar(List.of(journey), sb);
+        } catch (IOException e) {
+            // Impossible, un StringBuilder ne lève jamais d'IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
-        IcalBuilder builder = new IcalBuilder();
-
+    /**
+     * Écrit un unique calendrier contenant un événement par voyage donné, dans l'ordre de la
+     * liste, directement dans la destination donnée, p. ex. un {@link java.io.Writer}.
+     *
+     * @param journeys les voyages
+     * @param out      la destination
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public static void toIcalendar(List<Journey> journeys, Appendable out) throws IOException {
+        IcalWriter writer = new IcalWriter(out);
+        LocalDateTime now = LocalDateTime.now();
 
-        builder.begin(IcalBuilder.Component.VCALENDAR)
+        writer.begin(IcalBuilder.Component.VCALENDAR)
                 .add(IcalBuilder.Name.VERSION, "2.0")
                 .add(IcalBuilder.Name.PRODID, "ReCHor");
 
-        builder.begin(IcalBuilder.Component.VEVENT)
-                .add(IcalBuilder.Name.UID, UUID.randomUUID().toString())
-                .add(IcalBuilder.Name.DTSTAMP, LocalDateTime.now())
-                .add(IcalBuilder.Name.DTSTART, journey.depTime())
-                .add(IcalBuilder.Name.DTEND, journey.arrTime());
-
-        String summary = journey.depStop().name() + " → " + journey.arrStop().name();
-        builder.add(IcalBuilder.Name.SUMMARY, summary);
-
-        StringJoiner j = new StringJoiner("\\n");
-        for (Journey.Leg leg : journey.legs()) {
-            String description = switch (leg) {
-                case Journey.Leg.Foot foot -> FormatterFr.formatLeg(foot);
-                case Journey.Leg.Transport transport -> FormatterFr.formatLeg(transport);
-                default -> throw new IllegalStateException();
-            };
-            j.add(description);
-        }
-        builder.add(IcalBuilder.Name.DESCRIPTION, j.toString());
+        for (Journey journey : journeys) {
+            writer.begin(IcalBuilder.Component.VEVENT)
+                    .add(IcalBuilder.Name.UID, UUID.randomUUID().toString())
+                    .add(IcalBuilder.Name.DTSTAMP, now)
+                    .add(IcalBuilder.Name.DTSTART, journey.depTime())
+                    .add(IcalBuilder.Name.DTEND, journey.arrTime());
 
-        builder.end()
-                .end();
+            String summary = journey.depStop().name() + " → " + journey.arrStop().name();
+            writer.add(IcalBuilder.Name.SUMMARY, summary);
 
-        return builder.build();
+            StringJoiner j = new StringJoiner("\\n");
+            for (Journey.Leg leg : journey.legs()) {
+                String description = switch (leg) {
+                    case Journey.Leg.Foot foot -> FormatterFr.formatLeg(foot);
+                    case Journey.Leg.Transport transport -> FormatterFr.formatLeg(transport);
+                    default -> throw new IllegalStateException();
+                };
+                j.add(description);
+            }
+            writer.add(IcalBuilder.Name.DESCRIPTION, j.toString());
+
+            writer.end();
+        }
 
+        writer.end();
     }
 }
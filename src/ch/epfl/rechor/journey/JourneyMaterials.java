@@ -0,0 +1,91 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.TimeTable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Arrêts et heures des étapes des voyages extraits d'un même profil. Chaque arrêt n'est construit
+ * qu'une fois par identifiant, et chaque heure qu'une fois par minute, dans des tableaux alloués
+ * à la première extraction et remplis à la demande ; ils sont ensuite réutilisés par toutes les
+ * extractions du profil.
+ *
+ * Les instances peuvent être partagées entre plusieurs threads : deux extractions simultanées
+ * peuvent au pire construire chacune un même arrêt ou une même heure, tous deux immuables.
+ */
+public final class JourneyMaterials {
+    // Bornes des heures représentables dans les liaisons
+    static final int MIN_MINS = -240;
+    static final int MAX_MINS = 2879;
+
+    private final TimeTable timeTable;
+    private final LocalDateTime midnight;
+    private Stop[] stops;
+    private LocalDateTime[] times;
+
+    /**
+     * Construit les arrêts et heures, encore vides, des voyages extraits d'un profil.
+     *
+     * @param timeTable l'horaire du profil
+     * @param date      la date du profil
+     */
+    public JourneyMaterials(TimeTable timeTable, LocalDate date) {
+        this.timeTable = Objects.requireNonNull(timeTable);
+        this.midnight  = LocalDateTime.of(date, LocalTime.MIN);
+    }
+
+    /**
+     * Retourne l'arrêt d'identifiant donné, gare ou voie.
+     *
+     * @param stopId l'identifiant de l'arrêt
+     * @return l'arrêt
+     */
+    public Stop stop(int stopId) {
+        Stop[] stops = this.stops;
+        if (stops == null) {
+            stops = new Stop[timeTable.stations().size() + timeTable.platforms().size()];
+            this.stops = stops;
+        }
+        Stop stop = stops[stopId];
+        if (stop == null) {
+            Stations stations = timeTable.stations();
+            int stId = timeTable.stationId(stopId);
+            stop = new Stop(
+                    stations.name(stId),
+                    timeTable.platformName(stopId),
+                    stations.longitude(stId),
+                    stations.latitude(stId)
+            );
+            stops[stopId] = stop;
+        }
+        return stop;
+    }
+
+    /**
+     * Convertit un nombre de minutes après minuit en date et heure, à la date du profil.
+     *
+     * @param mins le nombre de minutes après minuit
+     * @return la date et l'heure
+     */
+    public LocalDateTime time(int mins) {
+        if (mins < MIN_MINS || mins > MAX_MINS) return midnight.plusMinutes(mins);
+        LocalDateTime[] times = this.times;
+        if (times == null) {
+            times = new LocalDateTime[MAX_MINS - MIN_MINS + 1];
+            this.times = times;
+        }
+        LocalDateTime time = times[mins - MIN_MINS];
+        if (time == null) {
+            time = midnight.plusMinutes(mins);
+            times[mins - MIN_MINS] = time;
+        }
+        return time;
+    }
+}
@@ -0,0 +1,34 @@
+package ch.epfl.rechor.journey;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Résumé d'un voyage optimal, déterminé à partir de son critère empaqueté sans construire
+ * ses étapes. Le voyage complet peut être obtenu au moyen de
+ * {@link JourneyExtractor#journey(Profile, int, JourneySummary)}.
+ *
+ * @param criteria   le critère empaqueté du voyage, tel que stocké dans le front de la gare de départ
+ * @param depMins    l'heure de départ du voyage, en minutes après minuit
+ * @param arrMins    l'heure d'arrivée du voyage, en minutes après minuit
+ * @param changes    le nombre de changements du voyage
+ * @param firstRoute le nom de la ligne empruntée par la première étape en transport
+ */
+public record JourneySummary(long criteria, int depMins, int arrMins, int changes, String firstRoute) {
+
+    /**
+     * Constructeur de JourneySummary.
+     *
+     * @throws IllegalArgumentException si le nombre de changements est négatif,
+     *                                  ou si l'heure d'arrivée précède l'heure de départ
+     * @throws NullPointerException     si le nom de la ligne est null
+     */
+    public JourneySummary {
+        Preconditions.checkArgument(changes >= 0 && depMins <= arrMins);
+        Objects.requireNonNull(firstRoute);
+    }
+}
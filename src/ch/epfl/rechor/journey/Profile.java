@@ -9,44 +9,86 @@ import ch.epfl.rechor.timetable.mapped.FileTimeTable;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * *  @author Valentin Walendy (393413)
  * *  @author Ruben Lellouche (400288)
  * Représente un profil de trajet basé sur un horaire spécifique et une date donnée.
  * Il contient les informations sur les stations et leurs fronts de Pareto.
+ * L'arrivée est soit une gare, soit une extrémité hors du réseau ({@link Endpoint}),
+ * auquel cas l'identifiant de la station d'arrivée vaut -1.
+ * Les liaisons et les courses du jour sont obtenues une seule fois de l'horaire, à la
+ * construction, de sorte que l'extraction des voyages ne retourne pas au système de fichiers.
+ * Les arrêts et heures des voyages extraits sont partagés par toutes les extractions du profil.
  */
 public record Profile(
         TimeTable timeTable,
         LocalDate date,
         int arrStationId,
-        List<ParetoFront> stationFront){
+        List<ParetoFront> stationFront,
+        Endpoint destination,
+        Connections connections,
+        Trips trips,
+        JourneyMaterials materials){
 
     /**
      * Constructeur de Profile qui crée une copie immuable de la liste stationFront.
      * @param timeTable L'horaire utilisé.
      * @param date La date du profil.
-     * @param arrStationId L'identifiant de la station d'arrivée.
+     * @param arrStationId L'identifiant de la station d'arrivée, ou -1.
      * @param stationFront La liste des fronts de Pareto des stations.
+     * @param destination L'extrémité d'arrivée, ou null si l'arrivée est une gare.
+     * @param connections Les liaisons de l'horaire à la date du profil.
+     * @param trips Les courses de l'horaire à la date du profil.
+     * @param materials Les arrêts et heures des voyages extraits du profil.
      */
     public Profile{
         stationFront = List.copyOf(stationFront);
+        Objects.requireNonNull(connections);
+        Objects.requireNonNull(trips);
+        Objects.requireNonNull(materials);
+    }
+
+    /**
+     * Constructeur de Profile dont les arrêts et heures des voyages extraits sont encore à construire.
+     * @param timeTable L'horaire utilisé.
+     * @param date La date du profil.
+     * @param arrStationId L'identifiant de la station d'arrivée, ou -1.
+     * @param stationFront La liste des fronts de Pareto des stations.
+     * @param destination L'extrémité d'arrivée, ou null si l'arrivée est une gare.
+     * @param connections Les liaisons de l'horaire à la date du profil.
+     * @param trips Les courses de l'horaire à la date du profil.
+     */
+    public Profile(TimeTable timeTable, LocalDate date, int arrStationId, List<ParetoFront> stationFront,
+                   Endpoint destination, Connections connections, Trips trips){
+        this(timeTable, date, arrStationId, stationFront, destination, connections, trips,
+                new JourneyMaterials(timeTable, date));
     }
 
     /**
-     * Retourne les connexions disponibles pour la date spécifiée.
-     * @return Un objet Connections contenant les trajets possibles.
+     * Constructeur de Profile obtenant de l'horaire les liaisons et les courses du jour.
+     * @param timeTable L'horaire utilisé.
+     * @param date La date du profil.
+     * @param arrStationId L'identifiant de la station d'arrivée, ou -1.
+     * @param stationFront La liste des fronts de Pareto des stations.
+     * @param destination L'extrémité d'arrivée, ou null si l'arrivée est une gare.
      */
-    public Connections connections(){
-        return timeTable.connectionsFor(date);
+    public Profile(TimeTable timeTable, LocalDate date, int arrStationId,
+                   List<ParetoFront> stationFront, Endpoint destination){
+        this(timeTable, date, arrStationId, stationFront, destination,
+                timeTable.connectionsFor(date), timeTable.tripsFor(date));
     }
 
     /**
-     * Retourne les voyages disponibles pour la date spécifiée.
-     * @return Un objet Trips contenant les voyages possibles.
+     * Constructeur de Profile dont l'arrivée est une gare.
+     * @param timeTable L'horaire utilisé.
+     * @param date La date du profil.
+     * @param arrStationId L'identifiant de la station d'arrivée.
+     * @param stationFront La liste des fronts de Pareto des stations.
      */
-    public Trips trips(){
-        return timeTable.tripsFor(date);
+    public Profile(TimeTable timeTable, LocalDate date, int arrStationId, List<ParetoFront> stationFront){
+        this(timeTable, date, arrStationId, stationFront, null);
     }
 
     /**
@@ -66,6 +108,9 @@ public record Profile(
         private final TimeTable timeTable;
         private final LocalDate date;
         private final int arrStationId;
+        private final Endpoint destination;
+        private final Connections connections;
+        private final Trips trips;
 
         private final ParetoFront.Builder[] stationFrontBuilders;
         private final ParetoFront.Builder[] tripFrontBuilders;
@@ -77,12 +122,45 @@ public record Profile(
          * @param arrStationId L'identifiant de la station d'arrivée.
          */
         public Builder(TimeTable timeTable, LocalDate date, int arrStationId) {
+            this(timeTable, date, arrStationId, null);
+        }
+
+        /**
+         * Constructeur du Builder d'un Profile dont l'arrivée est une extrémité hors du réseau.
+         * @param timeTable L'horaire utilisé.
+         * @param date La date du profil.
+         * @param destination L'extrémité d'arrivée.
+         */
+        public Builder(TimeTable timeTable, LocalDate date, Endpoint destination) {
+            this(timeTable, date, -1, Objects.requireNonNull(destination));
+        }
+
+        private Builder(TimeTable timeTable, LocalDate date, int arrStationId, Endpoint destination) {
             this.timeTable = timeTable;
             this.date = date;
             this.arrStationId = arrStationId;
+            this.destination = destination;
+            this.connections = timeTable.connectionsFor(date);
+            this.trips = timeTable.tripsFor(date);
             //this.stationFrontBuilders = new ParetoFront.Builder[((FileTimeTable) ((CachedTimeTable) timeTable).underlying).stringTable().size()];
             this.stationFrontBuilders = new ParetoFront.Builder[timeTable.stations().size()];
-            this.tripFrontBuilders = new ParetoFront.Builder[timeTable.tripsFor(date).size()];
+            this.tripFrontBuilders = new ParetoFront.Builder[trips.size()];
+        }
+
+        /**
+         * Retourne les liaisons de l'horaire à la date du profil, obtenues à la construction.
+         * @return Les liaisons du jour.
+         */
+        public Connections connections() {
+            return connections;
+        }
+
+        /**
+         * Retourne les courses de l'horaire à la date du profil, obtenues à la construction.
+         * @return Les courses du jour.
+         */
+        public Trips trips() {
+            return trips;
         }
 
         /**
@@ -134,7 +212,8 @@ public record Profile(
                     stationFronts.add(builder.build());
                 }
             }
-            return new Profile(timeTable, date, arrStationId, stationFronts);
+            return new Profile(timeTable, date, arrStationId, stationFronts, destination,
+                    connections, trips);
         }
     }
 }
\ No newline at end of file
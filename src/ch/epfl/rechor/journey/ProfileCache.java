@@ -0,0 +1,195 @@
+package ch.epfl.rechor.journey;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Cache de profils, partagé entre threads, dont les calculs sont exécutés en arrière-plan.
+ * Un profil demandé alors que son calcul est déjà en cours réutilise ce calcul au lieu
+ * d'en démarrer un nouveau, et les calculs devenus inutiles peuvent être annulés.
+ * Le cache contient aussi bien des profils ancrés à la gare d'arrivée ({@link Profile})
+ * que des profils ancrés à la gare de départ ({@link DepartureProfile}).
+ */
+public final class ProfileCache {
+
+    /** Clé identifiant un profil : sa date, sa gare d'ancrage et le sens de cet ancrage. */
+    private record Key(LocalDate date, int stationId, boolean departure) {}
+
+    private final Router router;
+    private final Executor executor;
+    private final int capacity;
+    private final LinkedHashMap<Key, FutureTask<?>> profiles;
+
+    /**
+     * Construit un cache de profils vide.
+     *
+     * @param router   le routeur utilisé pour calculer les profils
+     * @param executor l'exécuteur sur lequel les calculs sont lancés
+     * @param capacity le nombre maximal de profils conservés
+     * @throws IllegalArgumentException si la capacité n'est pas strictement positive
+     */
+    public ProfileCache(Router router, Executor executor, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException();
+        this.router = Objects.requireNonNull(router);
+        this.executor = Objects.requireNonNull(executor);
+        this.capacity = capacity;
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Retourne le profil pour la date et la gare d'arrivée données, en démarrant son calcul
+     * en arrière-plan s'il n'est ni déjà calculé ni en cours de calcul.
+     *
+     * @param date         la date du profil
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return le résultat (éventuellement futur) du calcul du profil
+     */
+    public synchronized Future<Profile> profile(LocalDate date, int arrStationId) {
+        return submit(new Key(Objects.requireNonNull(date), arrStationId, false),
+                () -> router.profile(date, arrStationId));
+    }
+
+    /**
+     * Retourne le profil ancré à la gare de départ donnée, pour la date donnée, en démarrant
+     * son calcul en arrière-plan s'il n'est ni déjà calculé ni en cours de calcul.
+     *
+     * @param date         la date du profil
+     * @param depStationId l'identifiant de la gare de départ
+     * @return le résultat (éventuellement futur) du calcul du profil
+     */
+    public synchronized Future<DepartureProfile> departureProfile(LocalDate date, int depStationId) {
+        return submit(new Key(Objects.requireNonNull(date), depStationId, true),
+                () -> router.departureProfile(date, depStationId));
+    }
+
+    /**
+     * Retourne le profil pour la date et la gare d'arrivée données s'il est déjà calculé.
+     *
+     * @param date         la date du profil
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return le profil, ou null s'il n'est pas (encore) disponible
+     */
+    public synchronized Profile cachedProfile(LocalDate date, int arrStationId) {
+        return (Profile) resultNow(new Key(date, arrStationId, false));
+    }
+
+    /**
+     * Retourne le profil ancré à la gare de départ donnée, pour la date donnée, s'il est
+     * déjà calculé.
+     *
+     * @param date         la date du profil
+     * @param depStationId l'identifiant de la gare de départ
+     * @return le profil, ou null s'il n'est pas (encore) disponible
+     */
+    public synchronized DepartureProfile cachedDepartureProfile(LocalDate date, int depStationId) {
+        return (DepartureProfile) resultNow(new Key(date, depStationId, true));
+    }
+
+    /**
+     * Retourne vrai ssi le profil pour la date et la gare d'arrivée données est déjà calculé
+     * ou en cours de calcul, et peut donc être obtenu sans nouveau calcul.
+     *
+     * @param date         la date du profil
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     * @return vrai ssi le profil est disponible ou en cours de calcul
+     */
+    public synchronized boolean hasProfile(LocalDate date, int arrStationId) {
+        return isUsable(profiles.get(new Key(date, arrStationId, false)));
+    }
+
+    /**
+     * Retourne vrai ssi le profil ancré à la gare de départ donnée, pour la date donnée, est
+     * déjà calculé ou en cours de calcul, et peut donc être obtenu sans nouveau calcul.
+     *
+     * @param date         la date du profil
+     * @param depStationId l'identifiant de la gare de départ
+     * @return vrai ssi le profil est disponible ou en cours de calcul
+     */
+    public synchronized boolean hasDepartureProfile(LocalDate date, int depStationId) {
+        return isUsable(profiles.get(new Key(date, depStationId, true)));
+    }
+
+    /**
+     * Annule le calcul du profil pour la date et la gare d'arrivée données s'il est en cours.
+     * Un profil déjà calculé reste dans le cache.
+     *
+     * @param date         la date du profil
+     * @param arrStationId l'identifiant de la gare d'arrivée
+     */
+    public synchronized void cancel(LocalDate date, int arrStationId) {
+        Key key = new Key(date, arrStationId, false);
+        FutureTask<?> task = profiles.get(key);
+        if (task != null && !task.isDone()) {
+            task.cancel(true);
+            profiles.remove(key);
+        }
+    }
+
+    /**
+     * Annule tous les calculs en cours, sauf celui dont le résultat est donné.
+     * Les profils déjà calculés restent dans le cache.
+     *
+     * @param kept le résultat, obtenu de ce cache, du calcul à conserver
+     */
+    public synchronized void cancelAllExcept(Future<?> kept) {
+        Iterator<FutureTask<?>> it = profiles.values().iterator();
+        while (it.hasNext()) {
+            FutureTask<?> task = it.next();
+            if (task != kept && !task.isDone()) {
+                task.cancel(true);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Retourne le calcul associé à la clé donnée, en le démarrant s'il n'existe pas ou s'il
+     * a été annulé ou a échoué.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Future<T> submit(Key key, Callable<T> computation) {
+        FutureTask<?> task = profiles.get(key);
+        if (!isUsable(task)) {
+            task = new FutureTask<>(computation);
+            profiles.put(key, task);
+            evictEldest();
+            executor.execute(task);
+        }
+        return (Future<T>) task;
+    }
+
+    /** Retourne le résultat du calcul associé à la clé donnée s'il est terminé, null sinon. */
+    private Object resultNow(Key key) {
+        FutureTask<?> task = profiles.get(key);
+        return task != null && task.state() == Future.State.SUCCESS ? task.resultNow() : null;
+    }
+
+    /** Retourne vrai ssi le calcul donné existe et n'a été ni annulé ni n'a échoué. */
+    private static boolean isUsable(FutureTask<?> task) {
+        return task != null
+                && task.state() != Future.State.CANCELLED
+                && task.state() != Future.State.FAILED;
+    }
+
+    /**
+     * Retire les profils les plus anciennement utilisés tant que la capacité est dépassée.
+     * Les calculs retirés ne sont pas annulés, car d'autres threads peuvent en attendre le
+     * résultat : seuls {@link #cancel} et {@link #cancelAllExcept} annulent un calcul.
+     */
+    private void evictEldest() {
+        Iterator<FutureTask<?>> it = profiles.values().iterator();
+        while (profiles.size() > capacity && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -3,36 +3,82 @@ package ch.epfl.rechor.journey;
 import ch.epfl.rechor.Bits32_24_8;
 import ch.epfl.rechor.PackedRange;
 import ch.epfl.rechor.timetable.Connections;
+import ch.epfl.rechor.timetable.FootpathGraph;
 import ch.epfl.rechor.timetable.Transfers;
 import ch.epfl.rechor.timetable.TimeTable;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * Router : implémentation “de base” du CSA avec payload
  * (payload = (indexPremièreConnexion << 8) | nombreArrêtsSautés).
+ * Un seul changement à pied est appliqué à chaque gare : les enchaînements de changements ne
+ * sont donc pris en compte que si l'horaire les fournit déjà, p. ex. un fichier de changements
+ * fermé transitivement par {@link ch.epfl.rechor.app.TransferClosure}.
  */
 public record Router(TimeTable timeTable) {
 
-    /** Construit le profil pour la date et la gare d’arrivée données. */
+    /** Nombre de connexions traitées entre deux vérifications d'interruption. */
+    private static final int INTERRUPT_CHECK_MASK = 0x3FF;
+    /** Plus petite heure représentable dans un critère empaqueté. */
+    private static final int MIN_MINS = -240;
+    /** Plus grande heure représentable dans un critère empaqueté. */
+    private static final int MAX_MINS = 2879;
+
+    /**
+     * Construit le profil pour la date et la gare d’arrivée données.
+     * Le calcul est abandonné si le thread appelant est interrompu.
+     *
+     * @throws CancellationException si le thread appelant a été interrompu pendant le calcul
+     */
     public Profile profile(LocalDate date, int destStationId) {
-        Connections conns   = timeTable.connectionsFor(date);
-        Transfers   transf  = timeTable.transfers();
+        Transfers transf = timeTable.transfers();
 
         /* -------- 1. pré‑calcul des temps de marche vers la destination -------- */
-        Map<Integer,Integer> walk = new HashMap<>();
+        int[] walk = new int[timeTable.stations().size()];
+        Arrays.fill(walk, -1);
         int view = transf.arrivingAt(destStationId);
         for (int i = PackedRange.startInclusive(view); i < PackedRange.endExclusive(view); ++i) {
-            walk.put(timeTable.stationId(transf.depStationId(i)),
-                    transf.minutes(i));
+            walk[timeTable.stationId(transf.depStationId(i))] = transf.minutes(i);
         }
 
-        /* -------- 2. structures CSA -------- */
-        Profile.Builder profile_builder = new Profile.Builder(timeTable, date, destStationId);
+        return profile(new Profile.Builder(timeTable, date, destStationId), walk);
+    }
+
+    /**
+     * Construit le profil pour la date et l'extrémité d'arrivée données : un seul calcul couvre
+     * toutes les gares depuis lesquelles l'extrémité est accessible à pied, la dernière étape
+     * menant de l'une d'elles à l'extrémité.
+     * Le calcul est abandonné si le thread appelant est interrompu.
+     *
+     * @throws CancellationException si le thread appelant a été interrompu pendant le calcul
+     */
+    public Profile profile(LocalDate date, Endpoint destination) {
+        int[] walk = new int[timeTable.stations().size()];
+        Arrays.fill(walk, -1);
+        for (Endpoint.Seed seed : destination.seeds()) {
+            int st = seed.stationId();
+            if (walk[st] < 0 || seed.minutes() < walk[st]) walk[st] = seed.minutes();
+        }
+
+        return profile(new Profile.Builder(timeTable, date, destination), walk);
+    }
+
+    /**
+     * Remplit le bâtisseur de profil donné, connaissant la durée de marche de chaque gare vers
+     * l'arrivée (-1 si l'arrivée n'est pas accessible à pied depuis la gare).
+     */
+    private Profile profile(Profile.Builder profile_builder, int[] walk) {
+        Connections conns  = profile_builder.connections();
+        Transfers   transf = timeTable.transfers();
 
         /* -------- 3. balayage des connexions (ordre départ décroissant) -------- */
         for (int i = 0; i < conns.size(); ++i) {
+            if ((i & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+                throw new CancellationException();
+
             ParetoFront.Builder connections_builder = new ParetoFront.Builder();
 
             final int firstConn = i;                 // pour le payload
@@ -45,17 +91,15 @@ public record Router(TimeTable timeTable) {
             int tripId    = conns.tripId(i);
 
             /* -- Option 1 : on descend et on termine à pied -- */
-            Integer w = walk.get(arrSt);
-            if (w != null)
-                connections_builder.add(arrTime + w, 0, firstConn);
+            if (walk[arrSt] >= 0)
+                connections_builder.add(arrTime + walk[arrSt], 0, firstConn);
 
 
             if (profile_builder.forTrip(tripId) != null)
                 connections_builder.addAll(profile_builder.forTrip(tripId));
 
 
-            int arrSt1 = timeTable.stationId(arrStop);
-            ParetoFront.Builder stFront = profile_builder.forStation(arrSt1);
+            ParetoFront.Builder stFront = profile_builder.forStation(arrSt);
             if (stFront != null) {
                 stFront.build().forEach(crit -> {
                     if (PackedCriteria.depMins(crit) >= arrTime) {
@@ -104,4 +148,97 @@ public record Router(TimeTable timeTable) {
         }
         return profile_builder.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Construit le profil ancré à la gare de départ donnée, pour la date donnée, en balayant
+     * les connexions par ordre de départ croissant. Ce profil permet d'extraire les voyages
+     * vers n'importe quelle gare d'arrivée sans nouveau calcul.
+     * Le calcul est abandonné si le thread appelant est interrompu.
+     *
+     * @throws CancellationException si le thread appelant a été interrompu pendant le calcul
+     */
+    public DepartureProfile departureProfile(LocalDate date, int depStationId) {
+        // Les fronts sont stockés dans un Profile.Builder, ancré ici à la gare de départ
+        Profile.Builder builder = new Profile.Builder(timeTable, date, depStationId);
+        Connections conns  = builder.connections();
+        int stationCount   = timeTable.stations().size();
+
+        /* -------- 1. changements indexés par gare de départ -------- */
+        FootpathGraph footpaths = timeTable.transfers().footpaths(stationCount);
+
+        /* -------- 2. temps de marche depuis la gare de départ -------- */
+        int[] walk = new int[stationCount];
+        Arrays.fill(walk, -1);
+        int origin = footpaths.departingFrom(depStationId);
+        for (int t = PackedRange.startInclusive(origin); t < PackedRange.endExclusive(origin); ++t)
+            walk[footpaths.arrStationId(t)] = footpaths.outMinutes(t);
+
+        /* -------- 3. balayage des connexions (ordre départ croissant) -------- */
+        for (int i = conns.size() - 1; i >= 0; --i) {
+            if ((i & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted())
+                throw new CancellationException();
+
+            ParetoFront.Builder f = new ParetoFront.Builder();
+
+            final int boardConn = i;
+            int depSt   = timeTable.stationId(conns.depStopId(i));
+            int arrSt   = timeTable.stationId(conns.arrStopId(i));
+            int depTime = conns.depMins(i);
+            int arrTime = conns.arrMins(i);
+            int tripId  = conns.tripId(i);
+
+            /* -- Option 1 : on part à pied de la gare de départ -- */
+            if (walk[depSt] >= 0 && depTime - walk[depSt] >= MIN_MINS)
+                f.add(DepartureProfile.mirror(depTime - walk[depSt]), 0, boardConn);
+
+            /* -- Option 2 : on est déjà dans la course -- */
+            ParetoFront.Builder tripFront = builder.forTrip(tripId);
+            if (tripFront != null)
+                f.addAll(tripFront);
+
+            /* -- Option 3 : on change à la gare de départ de la liaison -- */
+            ParetoFront.Builder depFront = builder.forStation(depSt);
+            if (depFront != null) {
+                depFront.forEach(crit -> {
+                    if (DepartureProfile.mirror(PackedCriteria.depMins(crit)) <= depTime) {
+                        f.add(PackedCriteria.pack(
+                                PackedCriteria.arrMins(crit),
+                                PackedCriteria.changes(crit) + 1,
+                                boardConn));
+                    }
+                });
+            }
+
+            if (f.isEmpty()) continue;
+
+            if (tripFront == null)
+                builder.setForTrip(tripId, new ParetoFront.Builder(f));
+            else
+                tripFront.addAll(f);
+
+            // Pas d'élagage par le front de la gare d'arrivée : ce front contient des heures
+            // incluant déjà un changement et n'est pas propagé plus loin.
+            int alightPos = conns.tripPos(i);
+            int out = footpaths.departingFrom(arrSt);
+            for (int t = PackedRange.startInclusive(out); t < PackedRange.endExclusive(out); ++t) {
+                int toSt = footpaths.arrStationId(t);
+                if (arrTime + footpaths.outMinutes(t) > MAX_MINS) continue;
+                int arrTime_transf = DepartureProfile.mirror(arrTime + footpaths.outMinutes(t));
+                if (builder.forStation(toSt) == null)
+                    builder.setForStation(toSt, new ParetoFront.Builder());
+                ParetoFront.Builder toFront = builder.forStation(toSt);
+                f.forEach(crit -> {
+                    int board = PackedCriteria.payload(crit);
+                    int stops = Math.max(0, Math.min(0xFF, alightPos - conns.tripPos(board)));
+                    toFront.add(PackedCriteria.withPayload(
+                            PackedCriteria.withDepMins(crit, arrTime_transf),
+                            Bits32_24_8.pack(board, stops)));
+                });
+            }
+        }
+
+        Profile profile = builder.build();
+        return new DepartureProfile(timeTable, date, depStationId, profile.stationFront(),
+                profile.connections(), profile.trips());
+    }
+}
@@ -0,0 +1,72 @@
+package ch.epfl.rechor.server;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Statistiques de latence des requêtes, calculées sur les dernières mesures enregistrées.
+ * Les mesures sont conservées dans un tampon circulaire de taille fixe, ce qui borne la mémoire
+ * utilisée et fait suivre aux percentiles l'évolution récente de la charge. Les instances de
+ * cette classe peuvent être partagées entre threads.
+ */
+public final class LatencyStats {
+    private final long[] samples;
+    private long count;
+
+    /**
+     * Construit des statistiques vides, conservant au plus le nombre de mesures donné.
+     *
+     * @param capacity le nombre de mesures conservées
+     * @throws IllegalArgumentException si la capacité n'est pas strictement positive
+     */
+    public LatencyStats(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Enregistre une mesure, remplaçant la plus ancienne si le tampon est plein.
+     *
+     * @param nanos la durée mesurée, en nanosecondes
+     */
+    public synchronized void record(long nanos) {
+        samples[(int) (count % samples.length)] = nanos;
+        count += 1;
+    }
+
+    /**
+     * Retourne le nombre total de mesures enregistrées depuis la création.
+     *
+     * @return le nombre de mesures
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Retourne les percentiles donnés des mesures conservées, par la méthode du rang le plus
+     * proche. Les percentiles valent tous 0 si aucune mesure n'a été enregistrée.
+     *
+     * @param quantiles les percentiles voulus, compris entre 0 et 1
+     * @return les durées correspondantes, en nanosecondes, dans l'ordre des percentiles donnés
+     * @throws IllegalArgumentException si l'un des percentiles n'est pas compris entre 0 et 1
+     */
+    public long[] percentiles(double... quantiles) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(sorted);
+
+        long[] values = new long[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            double q = quantiles[i];
+            Preconditions.checkArgument(0 <= q && q <= 1);
+            if (sorted.length == 0) continue;
+            int rank = (int) Math.ceil(q * sorted.length);
+            values[i] = sorted[Math.max(0, rank - 1)];
+        }
+        return values;
+    }
+}
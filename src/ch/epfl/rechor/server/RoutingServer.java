@@ -0,0 +1,440 @@
+package ch.epfl.rechor.server;
+
+import ch.epfl.rechor.Json;
+import ch.epfl.rechor.JsonWriter;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.StopIndex;
+import ch.epfl.rechor.StopIndexSnapshot;
+import ch.epfl.rechor.journey.*;
+import ch.epfl.rechor.timetable.StationAliases;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import ch.epfl.rechor.timetable.mapped.TimeTableCatalog;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.System.Logger.Level;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service HTTP de calcul d'itinéraires, sans interface graphique.
+ *
+ * Les horaires proviennent d'un catalogue d'instantanés ({@link TimeTableCatalog}) : chaque
+ * requête est servie par l'instantané contenant sa date, sur lequel elle détient un bail jusqu'à
+ * sa fin, et le catalogue est relu périodiquement afin de prendre en compte les nouvelles
+ * semaines sans redémarrage. Chaque instantané a son propre cache de profils. Chaque requête est
+ * traitée dans son propre thread virtuel, tandis que les calculs de profils sont exécutés par un
+ * nombre fixe de threads, ce qui borne le nombre de calculs simultanés. Les points d'accès sont :
+ * <ul>
+ *     <li>{@code /stations?q=…&max=…[&date=…]} : noms des gares correspondant à la requête, dans
+ *     l'instantané de la date donnée ou, à défaut, dans le plus récent ;</li>
+ *     <li>{@code /journeys?from=…&to=…&date=…[&time=…]} : résumés des voyages optimaux ;</li>
+ *     <li>{@code /journey.geojson?…&index=…} et {@code /journey.ics?…&index=…} : tracé GeoJSON et
+ *     événement iCalendar du voyage d'index donné parmi ceux retournés par {@code /journeys} ;</li>
+ *     <li>{@code /stats} : nombre de requêtes et percentiles de leur latence, par point d'accès.</li>
+ * </ul>
+ *
+ * Arguments (optionnels) : dossier des instantanés (ou d'un seul instantané), port, nombre
+ * maximal de calculs simultanés.
+ */
+public final class RoutingServer {
+    private static final System.Logger LOGGER = System.getLogger(RoutingServer.class.getName());
+    private static final int PROFILE_CACHE_CAPACITY = 64;
+    private static final int LATENCY_WINDOW = 4096;
+    private static final int DEFAULT_MAX_STATIONS = 10;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final long RELOAD_PERIOD_SECONDS = 60;
+
+    private final TimeTableCatalog catalog;
+    // Données propres à chaque instantané ouvert, par dossier, accès sous le verrou de la table
+    private final Map<Path, Network> networks = new HashMap<>();
+    private final ExecutorService routingExecutor;
+    private final Map<String, LatencyStats> latencies = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ScheduledExecutorService reloader;
+
+    /**
+     * Construit un service sur les horaires du catalogue donné.
+     *
+     * @param catalog             le catalogue des instantanés, partagé par toutes les requêtes
+     * @param maxConcurrentRoutes le nombre maximal de profils calculés simultanément
+     * @throws IllegalArgumentException si le nombre de calculs simultanés n'est pas strictement positif
+     */
+    public RoutingServer(TimeTableCatalog catalog, int maxConcurrentRoutes) {
+        Preconditions.checkArgument(maxConcurrentRoutes > 0);
+        this.catalog = Objects.requireNonNull(catalog);
+        this.routingExecutor = Executors.newFixedThreadPool(maxConcurrentRoutes, daemon("rechor-routing"));
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir      = Path.of(args.length > 0 ? args[0] : "timetables");
+        int port      = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int maxRoutes = args.length > 2
+                ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        TimeTableCatalog catalog = TimeTableCatalog.in(dir);
+        RoutingServer server = new RoutingServer(catalog, maxRoutes);
+        server.start(port);
+        LOGGER.log(Level.INFO, "ReCHor écoute sur le port {0,number,#} ({1} calculs simultanés, {2} horaires)",
+                port, maxRoutes, catalog.directories().size());
+    }
+
+    /**
+     * Démarre le service sur le port donné.
+     *
+     * @param port le port d'écoute, ou 0 pour un port libre quelconque
+     * @return le port d'écoute effectif
+     * @throws IOException en cas d'erreur lors de l'ouverture du port
+     */
+    public synchronized int start(int port) throws IOException {
+        Preconditions.checkArgument(server == null);
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/stations", timed("stations", this::stations));
+        server.createContext("/journeys", timed("journeys", this::journeys));
+        server.createContext("/journey.geojson", timed("geojson", this::geoJson));
+        server.createContext("/journey.ics", timed("ics", this::icalendar));
+        server.createContext("/stats", this::stats);
+        server.start();
+
+        reloader = Executors.newSingleThreadScheduledExecutor(daemon("rechor-reload"));
+        reloader.scheduleWithFixedDelay(
+                this::reload, RELOAD_PERIOD_SECONDS, RELOAD_PERIOD_SECONDS, TimeUnit.SECONDS);
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Arrête le service, en laissant au plus la durée donnée aux requêtes en cours pour se
+     * terminer, et abandonne les calculs de profils en cours.
+     *
+     * @param delaySeconds la durée maximale d'attente, en secondes
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server != null) server.stop(delaySeconds);
+        server = null;
+        if (reloader != null) reloader.shutdownNow();
+        reloader = null;
+        routingExecutor.shutdownNow();
+    }
+
+    /** Relit le catalogue des instantanés, p. ex. après le dépôt d'une nouvelle semaine. */
+    private void reload() {
+        try {
+            if (catalog.reload()) LOGGER.log(Level.INFO, "Horaires rechargés : {0}", catalog.directories());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Rechargement des horaires impossible", e);
+        }
+    }
+
+    /**
+     * Données propres à un instantané : identifiants des gares par nom (principal ou
+     * alternatif), cache de profils et, construit à la première recherche, index des noms.
+     */
+    private static final class Network {
+        private final FileTimeTable timeTable;
+        private final Path directory;
+        private final Map<String, Integer> stationIds;
+        private final ProfileCache profileCache;
+        private StopIndex stopIndex;
+
+        Network(FileTimeTable timeTable, Path directory, ExecutorService executor) {
+            this.timeTable = timeTable;
+            this.directory = directory;
+            Stations stations = timeTable.stations();
+            StationAliases aliases = timeTable.stationAliases();
+            Map<String, Integer> ids = new HashMap<>();
+            for (int i = 0; i < stations.size(); i++) ids.putIfAbsent(stations.name(i), i);
+            for (int i = 0; i < aliases.size(); i++) {
+                Integer id = ids.get(aliases.stationName(i));
+                if (id != null && !ids.containsKey(aliases.alias(i))) ids.put(aliases.alias(i), id);
+            }
+            this.stationIds = Map.copyOf(ids);
+            this.profileCache = new ProfileCache(new Router(timeTable), executor, PROFILE_CACHE_CAPACITY);
+        }
+
+        synchronized StopIndex stopIndex() {
+            if (stopIndex == null)
+                stopIndex = StopIndexSnapshot.load(directory, timeTable.stations(), timeTable.stationAliases());
+            return stopIndex;
+        }
+    }
+
+    /**
+     * Retourne les données de l'instantané du bail donné, en les créant si nécessaire, et
+     * oublie celles des instantanés fermés depuis, en annulant leurs calculs en cours.
+     */
+    private Network network(TimeTableCatalog.Lease lease) {
+        synchronized (networks) {
+            Iterator<Network> it = networks.values().iterator();
+            while (it.hasNext()) {
+                Network network = it.next();
+                if (!catalog.isOpen(network.timeTable)) {
+                    network.profileCache.cancelAllExcept(null);
+                    it.remove();
+                }
+            }
+            Network network = networks.get(lease.directory());
+            // Un instantané rouvert a un nouvel horaire, et donc de nouveaux identifiants
+            if (network == null || network.timeTable != lease.timeTable()) {
+                network = new Network(lease.timeTable(), lease.directory(), routingExecutor);
+                networks.put(lease.directory(), network);
+            }
+            return network;
+        }
+    }
+
+    private Response stations(Map<String, String> params) {
+        String query = params.getOrDefault("q", "");
+        int max = intParam(params, "max", DEFAULT_MAX_STATIONS);
+        List<Json> names = new ArrayList<>();
+        try (TimeTableCatalog.Lease lease = params.containsKey("date")
+                ? catalog.lease(date(params))
+                : catalog.latest()) {
+            for (String name : network(lease).stopIndex().stopsMatching(query, max))
+                names.add(new Json.JString(name));
+        }
+        return Response.json(new Json.JArray(names));
+    }
+
+    private Response journeys(Map<String, String> params) throws InterruptedException {
+        LocalDate date = date(params);
+        List<Json> items = new ArrayList<>();
+        try (TimeTableCatalog.Lease lease = catalog.lease(date)) {
+            Query query = query(network(lease), params, date);
+            for (JourneySummary summary : query.summaries()) {
+                Map<String, Json> item = new LinkedHashMap<>();
+                item.put("departure", new Json.JString(query.time(summary.depMins()).toString()));
+                item.put("arrival", new Json.JString(query.time(summary.arrMins()).toString()));
+                item.put("changes", new Json.JNumber(summary.changes()));
+                item.put("route", new Json.JString(summary.firstRoute()));
+                items.add(new Json.JObject(item));
+            }
+        }
+        return Response.json(new Json.JArray(items));
+    }
+
+    private Response geoJson(Map<String, String> params) throws InterruptedException {
+        Journey journey = journey(params);
+        return new Response("application/geo+json", out -> JourneyGeoJsonConverter.toGeoJson(journey, out));
+    }
+
+    private Response icalendar(Map<String, String> params) throws InterruptedException {
+        List<Journey> journeys = List.of(journey(params));
+        return Response.chars("text/calendar", out -> JourneyIcalConverter.toIcalendar(journeys, out));
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        Map<String, Json> members = new TreeMap<>();
+        latencies.forEach((name, stats) -> {
+            long[] p = stats.percentiles(QUANTILES);
+            Map<String, Json> member = new LinkedHashMap<>();
+            member.put("count", new Json.JNumber(stats.count()));
+            member.put("p50Ms", new Json.JNumber(p[0] / 1e6));
+            member.put("p90Ms", new Json.JNumber(p[1] / 1e6));
+            member.put("p99Ms", new Json.JNumber(p[2] / 1e6));
+            members.put(name, new Json.JObject(member));
+        });
+        send(exchange, 200, Response.json(new Json.JObject(members)));
+    }
+
+    /** Retourne le voyage complet correspondant au résumé d'index donné de la requête. */
+    private Journey journey(Map<String, String> params) throws InterruptedException {
+        LocalDate date = date(params);
+        try (TimeTableCatalog.Lease lease = catalog.lease(date)) {
+            Query query = query(network(lease), params, date);
+            List<JourneySummary> summaries = query.summaries();
+            int index = intParam(params, "index", 0);
+            if (index < 0 || index >= summaries.size()) throw new NoSuchElementException("Aucun voyage d'index " + index);
+            return JourneyExtractor.journey(query.profile(), query.depId(), summaries.get(index));
+        }
+    }
+
+    /** Requête de voyages : profil calculé (ou réutilisé), gare de départ et heure minimale. */
+    private record Query(Profile profile, int depId, LocalDate date, int fromMins) {
+        List<JourneySummary> summaries() {
+            return JourneyExtractor.summaries(profile, depId, fromMins, Integer.MAX_VALUE);
+        }
+
+        LocalDateTime time(int mins) {
+            return date.atStartOfDay().plusMinutes(mins);
+        }
+    }
+
+    /** Retourne la requête de voyages décrite par les paramètres, dans l'instantané donné. */
+    private static Query query(Network network, Map<String, String> params, LocalDate date)
+            throws InterruptedException {
+        int depId = stationId(network, params, "from");
+        int arrId = stationId(network, params, "to");
+        LocalTime time;
+        try {
+            time = params.containsKey("time") ? LocalTime.parse(params.get("time")) : LocalTime.MIN;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date ou heure invalide");
+        }
+
+        try {
+            Profile profile = network.profileCache.profile(date, arrId).get();
+            return new Query(profile, depId, date, time.getHour() * 60 + time.getMinute());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw new NoSuchElementException("Aucun horaire pour le " + date);
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static LocalDate date(Map<String, String> params) {
+        try {
+            return LocalDate.parse(required(params, "date"));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date ou heure invalide");
+        }
+    }
+
+    private static int stationId(Network network, Map<String, String> params, String name) {
+        String station = required(params, name);
+        Integer id = network.stationIds.get(station);
+        if (id == null) throw new NoSuchElementException("Gare inconnue : " + station);
+        return id;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) throw new IllegalArgumentException("Paramètre manquant : " + name);
+        return value;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        try {
+            return params.containsKey(name) ? Integer.parseInt(params.get(name)) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Paramètre invalide : " + name);
+        }
+    }
+
+    /** Réponse à une requête : son type de contenu et l'écriture de son corps. */
+    private record Response(String contentType, Body body) {
+        static Response text(String contentType, String body) {
+            return chars(contentType, out -> out.append(body));
+        }
+
+        static Response json(Json json) {
+            return chars("application/json", out -> new JsonWriter(out).value(json));
+        }
+
+        /** Retourne la réponse dont le corps textuel est écrit, encodé en UTF-8, par l'écrivain donné. */
+        static Response chars(String contentType, TextBody body) {
+            return new Response(contentType, out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                body.writeTo(writer);
+                writer.flush();
+            });
+        }
+    }
+
+    /** Corps d'une réponse, dont les octets sont écrits directement dans le flot de la réponse. */
+    @FunctionalInterface
+    private interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Corps textuel d'une réponse, écrit caractère par caractère. */
+    @FunctionalInterface
+    private interface TextBody {
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    /** Point d'accès retournant une réponse en fonction des paramètres de la requête. */
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(Map<String, String> params) throws InterruptedException;
+    }
+
+    /**
+     * Retourne le gestionnaire exécutant le point d'accès donné, traduisant ses exceptions en
+     * codes d'erreur HTTP et enregistrant la latence de chaque requête sous le nom donné.
+     */
+    private HttpHandler timed(String name, Endpoint endpoint) {
+        LatencyStats stats = latencies.computeIfAbsent(name, n -> new LatencyStats(LATENCY_WINDOW));
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                Response response;
+                int status = 200;
+                try {
+                    response = endpoint.handle(parameters(exchange.getRequestURI().getRawQuery()));
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    response = Response.text("text/plain", String.valueOf(e.getMessage()));
+                } catch (NoSuchElementException e) {
+                    status = 404;
+                    response = Response.text("text/plain", String.valueOf(e.getMessage()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    status = 503;
+                    response = Response.text("text/plain", "Service interrompu");
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.ERROR, "Erreur interne : " + exchange.getRequestURI(), e);
+                    status = 500;
+                    response = Response.text("text/plain", "Erreur interne");
+                }
+                send(exchange, status, response);
+            } finally {
+                stats.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, Response response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", response.contentType() + "; charset=utf-8");
+        // Longueur 0 : corps transmis par morceaux, au fur et à mesure de son écriture
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            response.body().writeTo(out);
+        }
+    }
+
+    /** Décode les paramètres de la chaîne de requête donnée (éventuellement null). */
+    static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key   = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.putIfAbsent(
+                    URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -8,13 +8,17 @@ import java.util.Objects;
  *  @author Ruben Lellouche (400288)
  *
  *  Classe publique implémentant TimeTable avec cache pour les données dépendantes de la date.
+ *  Les courses et les liaisons sont mises en cache indépendamment, chacune pour la dernière date
+ *  demandée, et l'accès au cache est synchronisé afin que l'horaire puisse être partagé entre
+ *  plusieurs threads.
  */
 public final class CachedTimeTable implements TimeTable {
     //public final TimeTable underlying;
 //a prendre en compte que en asistana ce matin c'etait en public
        private final TimeTable underlying;
-    private LocalDate cachedDate;
+    private LocalDate cachedTripsDate;
     private Trips cachedTrips;
+    private LocalDate cachedConnectionsDate;
     private Connections cachedConnections;
 
     /**
@@ -24,8 +28,9 @@ public final class CachedTimeTable implements TimeTable {
      */
     public CachedTimeTable(TimeTable underlying) {
         this.underlying = Objects.requireNonNull(underlying);
-        this.cachedDate = null;
+        this.cachedTripsDate = null;
         this.cachedTrips = null;
+        this.cachedConnectionsDate = null;
         this.cachedConnections = null;
     }
 
@@ -55,42 +60,41 @@ public final class CachedTimeTable implements TimeTable {
     }
 
     @Override
-    public Trips tripsFor(LocalDate date) {
-        if (cachedDate == null || !cachedDate.equals(date) || cachedTrips == null) {
+    public synchronized Trips tripsFor(LocalDate date) {
+        if (cachedTripsDate == null || !cachedTripsDate.equals(date)) {
             cachedTrips = underlying.tripsFor(date);
-            cachedDate = date;
+            cachedTripsDate = date;
         }
         return cachedTrips;
     }
 
     @Override
-    public Connections connectionsFor(LocalDate date) {
-        if (cachedDate == null || !cachedDate.equals(date) || cachedConnections == null) {
+    public synchronized Connections connectionsFor(LocalDate date) {
+        if (cachedConnectionsDate == null || !cachedConnectionsDate.equals(date)) {
             cachedConnections = underlying.connectionsFor(date);
-            cachedDate = date;
+            cachedConnectionsDate = date;
         }
         return cachedConnections;
     }
 
-    // je ne pense pas que ce soit necessaire ici de les remettre
+    // Délégués explicitement, afin de profiter de la table des arrêts de l'horaire sous-jacent
+    @Override
+    public boolean isStationId(int stopId) {
+        return underlying.isStationId(stopId);
+    }
+
+    @Override
+    public boolean isPlatformId(int stopId) {
+        return underlying.isPlatformId(stopId);
+    }
 
-    //@Override
-    //    public boolean isStationId(int stopId) {
-    //        return underlying.isStationId(stopId);
-    //    }
-    //
-    //    @Override
-    //    public boolean isPlatformId(int stopId) {
-    //        return underlying.isPlatformId(stopId);
-    //    }
-    //
-    //    @Override
-    //    public int stationId(int stopId) {
-    //        return underlying.stationId(stopId);
-    //    }
-    //
-    //    @Override
-    //    public String platformName(int stopId) {
-    //        return underlying.platformName(stopId);
-    //    }
+    @Override
+    public int stationId(int stopId) {
+        return underlying.stationId(stopId);
+    }
+
+    @Override
+    public String platformName(int stopId) {
+        return underlying.platformName(stopId);
+    }
 }
@@ -0,0 +1,228 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.PackedRange;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Graphe des changements entre gares, stocké sous forme compacte (« compressed sparse row ») :
+ * pour chaque gare, les changements qui y arrivent et ceux qui en partent occupent chacun un
+ * intervalle contigu d'index, décrit par un intervalle empaqueté. Les gares voisines sont
+ * stockées sur 16 bits et les durées sur 8 bits, comme dans les fichiers d'horaire.
+ *
+ * Le graphe permet de parcourir les changements aussi bien vers l'arrière (changements arrivant à
+ * une gare, utilisés par le profil ancré à l'arrivée) que vers l'avant (changements partant d'une
+ * gare, utilisés par le profil ancré au départ).
+ */
+public final class FootpathGraph {
+
+    private final int[] inRanges;
+    private final short[] inStations;
+    private final byte[] inMinutes;
+    private final int[] outRanges;
+    private final short[] outStations;
+    private final byte[] outMinutes;
+
+    private FootpathGraph(int[] inRanges, short[] inStations, byte[] inMinutes,
+                          int[] outRanges, short[] outStations, byte[] outMinutes) {
+        this.inRanges    = inRanges;
+        this.inStations  = inStations;
+        this.inMinutes   = inMinutes;
+        this.outRanges   = outRanges;
+        this.outStations = outStations;
+        this.outMinutes  = outMinutes;
+    }
+
+    /**
+     * Construit le graphe des changements donnés par leurs attributs, en une passe de comptage
+     * suivie d'une passe de remplissage. Les intervalles des gares se suivent dans l'ordre de
+     * première apparition des gares, et les changements arrivant à (resp. partant d')une même
+     * gare conservent leur ordre relatif ; en particulier, si les changements sont groupés par
+     * gare d'arrivée, l'index entrant d'un changement est égal à son index d'origine.
+     *
+     * @param size         le nombre de changements
+     * @param depStationId la fonction donnant la gare de départ du changement d'index donné
+     * @param arrStationId la fonction donnant la gare d'arrivée du changement d'index donné
+     * @param minutes      la fonction donnant la durée, en minutes, du changement d'index donné
+     * @return le graphe des changements
+     * @throws IllegalArgumentException si une gare est reliée à plus de 255 autres
+     */
+    public static FootpathGraph of(int size,
+                                   IntUnaryOperator depStationId,
+                                   IntUnaryOperator arrStationId,
+                                   IntUnaryOperator minutes) {
+        int stationCount = 0;
+        for (int i = 0; i < size; i++) {
+            stationCount = Math.max(stationCount,
+                    Math.max(depStationId.applyAsInt(i), arrStationId.applyAsInt(i)) + 1);
+        }
+
+        int[] inCounts  = new int[stationCount];
+        int[] outCounts = new int[stationCount];
+        for (int i = 0; i < size; i++) {
+            inCounts[arrStationId.applyAsInt(i)] += 1;
+            outCounts[depStationId.applyAsInt(i)] += 1;
+        }
+
+        // Début de l'intervalle de chaque gare, attribué à sa première apparition (-1 avant)
+        int[] inFill  = new int[stationCount];
+        int[] outFill = new int[stationCount];
+        Arrays.fill(inFill, -1);
+        Arrays.fill(outFill, -1);
+        int[] inRanges  = new int[stationCount];
+        int[] outRanges = new int[stationCount];
+        int inNext = 0, outNext = 0;
+        for (int i = 0; i < size; i++) {
+            int arr = arrStationId.applyAsInt(i);
+            int dep = depStationId.applyAsInt(i);
+            if (inFill[arr] < 0) {
+                inRanges[arr] = PackedRange.pack(inNext, inNext + inCounts[arr]);
+                inFill[arr] = inNext;
+                inNext += inCounts[arr];
+            }
+            if (outFill[dep] < 0) {
+                outRanges[dep] = PackedRange.pack(outNext, outNext + outCounts[dep]);
+                outFill[dep] = outNext;
+                outNext += outCounts[dep];
+            }
+        }
+
+        short[] inStations  = new short[size];
+        byte[]  inMinutes   = new byte[size];
+        short[] outStations = new short[size];
+        byte[]  outMinutes  = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int dep = depStationId.applyAsInt(i);
+            int arr = arrStationId.applyAsInt(i);
+            byte m  = (byte) minutes.applyAsInt(i);
+            int in  = inFill[arr]++;
+            int out = outFill[dep]++;
+            inStations[in]   = (short) dep;
+            inMinutes[in]    = m;
+            outStations[out] = (short) arr;
+            outMinutes[out]  = m;
+        }
+
+        return new FootpathGraph(inRanges, inStations, inMinutes, outRanges, outStations, outMinutes);
+    }
+
+    /**
+     * Construit le graphe des changements arrivant aux gares d'index compris entre 0 (inclus)
+     * et le nombre de gares donné (exclu).
+     *
+     * @param transfers    les changements
+     * @param stationCount le nombre de gares
+     * @return le graphe des changements
+     * @throws IllegalArgumentException si une gare est reliée à plus de 255 autres
+     */
+    public static FootpathGraph of(Transfers transfers, int stationCount) {
+        Objects.requireNonNull(transfers);
+        int size = 0;
+        for (int s = 0; s < stationCount; s++) size += PackedRange.length(transfers.arrivingAt(s));
+
+        int[] dep = new int[size];
+        int[] arr = new int[size];
+        int[] min = new int[size];
+        int i = 0;
+        for (int s = 0; s < stationCount; s++) {
+            int range = transfers.arrivingAt(s);
+            for (int t = PackedRange.startInclusive(range); t < PackedRange.endExclusive(range); t++) {
+                dep[i] = transfers.depStationId(t);
+                arr[i] = s;
+                min[i] = transfers.minutes(t);
+                i += 1;
+            }
+        }
+        return of(size, id -> dep[id], id -> arr[id], id -> min[id]);
+    }
+
+    /**
+     * Retourne le nombre de gares couvertes par le graphe, c.-à-d. un de plus que le plus
+     * grand index de gare reliée à une autre.
+     *
+     * @return le nombre de gares couvertes
+     */
+    public int stationCount() {
+        return inRanges.length;
+    }
+
+    /**
+     * Retourne le nombre de changements du graphe.
+     *
+     * @return le nombre de changements
+     */
+    public int size() {
+        return inStations.length;
+    }
+
+    /**
+     * Retourne l'intervalle empaqueté des index entrants des changements arrivant à la gare donnée.
+     * Une gare non couverte par le graphe n'a aucun changement.
+     *
+     * @param stationId l'index de la gare d'arrivée
+     * @return l'intervalle empaqueté des index entrants
+     */
+    public int arrivingAt(int stationId) {
+        return stationId < stationCount() ? inRanges[stationId] : PackedRange.pack(0, 0);
+    }
+
+    /**
+     * Retourne la gare de départ du changement d'index entrant donné.
+     *
+     * @param inId l'index entrant du changement
+     * @return l'index de la gare de départ
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int depStationId(int inId) {
+        return Short.toUnsignedInt(inStations[inId]);
+    }
+
+    /**
+     * Retourne la durée, en minutes, du changement d'index entrant donné.
+     *
+     * @param inId l'index entrant du changement
+     * @return la durée du changement en minutes
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int inMinutes(int inId) {
+        return Byte.toUnsignedInt(inMinutes[inId]);
+    }
+
+    /**
+     * Retourne l'intervalle empaqueté des index sortants des changements partant de la gare donnée.
+     * Une gare non couverte par le graphe n'a aucun changement.
+     *
+     * @param stationId l'index de la gare de départ
+     * @return l'intervalle empaqueté des index sortants
+     */
+    public int departingFrom(int stationId) {
+        return stationId < stationCount() ? outRanges[stationId] : PackedRange.pack(0, 0);
+    }
+
+    /**
+     * Retourne la gare d'arrivée du changement d'index sortant donné.
+     *
+     * @param outId l'index sortant du changement
+     * @return l'index de la gare d'arrivée
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int arrStationId(int outId) {
+        return Short.toUnsignedInt(outStations[outId]);
+    }
+
+    /**
+     * Retourne la durée, en minutes, du changement d'index sortant donné.
+     *
+     * @param outId l'index sortant du changement
+     * @return la durée du changement en minutes
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public int outMinutes(int outId) {
+        return Byte.toUnsignedInt(outMinutes[outId]);
+    }
+}
@@ -0,0 +1,306 @@
+package ch.epfl.rechor.timetable;
+
+import ch.epfl.rechor.Preconditions;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Index spatial des gares, permettant de trouver rapidement celles proches d'une position.
+ *
+ * Les gares sont réparties dans une grille uniforme de cases d'environ 500 m de côté, obtenue par
+ * projection équirectangulaire autour de la latitude moyenne des gares. Seules les cases non vides
+ * sont stockées, triées par coordonnées, et les gares d'une même case occupent un intervalle
+ * contigu ; la taille de l'index ne dépend ainsi que du nombre de gares, même si celles-ci sont
+ * dispersées sur un large territoire.
+ */
+public final class StationGrid {
+    /** Vitesse de marche, en mètres par minute (environ 4.8 km/h), utilisée pour estimer les trajets à pied. */
+    public static final double WALKING_METERS_PER_MINUTE = 80;
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+    private static final double METERS_PER_DEGREE = Math.toRadians(EARTH_RADIUS_METERS);
+    private static final double CELL_METERS = 500;
+    // Demi-circonférence terrestre, distance maximale entre deux points
+    private static final double MAX_DISTANCE_METERS = Math.PI * EARTH_RADIUS_METERS;
+
+    // Coordonnées des gares en radians, et cosinus de leur latitude, pour la formule de haversine
+    private final double[] lonRadians;
+    private final double[] latRadians;
+    private final double[] latCosines;
+    private final double lonCellMeters;
+    // Coordonnées des cases non vides, triées, et début de leur intervalle dans stationIds
+    private final long[] cellKeys;
+    private final int[] cellStarts;
+    private final int[] stationIds;
+
+    private StationGrid(double[] lonRadians,
+                        double[] latRadians,
+                        double[] latCosines,
+                        double lonCellMeters,
+                        long[] cellKeys,
+                        int[] cellStarts,
+                        int[] stationIds) {
+        this.lonRadians    = lonRadians;
+        this.latRadians    = latRadians;
+        this.latCosines    = latCosines;
+        this.lonCellMeters = lonCellMeters;
+        this.cellKeys      = cellKeys;
+        this.cellStarts    = cellStarts;
+        this.stationIds    = stationIds;
+    }
+
+    /**
+     * Construit l'index spatial des gares données.
+     *
+     * @param stations les gares
+     * @return l'index spatial de ces gares
+     */
+    public static StationGrid of(Stations stations) {
+        int size = stations.size();
+        double[] lons = new double[size];
+        double[] lats = new double[size];
+        double latSum = 0;
+        for (int i = 0; i < size; i++) {
+            lons[i] = stations.longitude(i);
+            lats[i] = stations.latitude(i);
+            latSum += lats[i];
+        }
+        double meanLat = size == 0 ? 0 : latSum / size;
+        double lonCellMeters = METERS_PER_DEGREE * Math.cos(Math.toRadians(meanLat));
+
+        Integer[] order = new Integer[size];
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            keys[i] = cellKey(cellX(lons[i], lonCellMeters), cellY(lats[i]));
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> keys[i]).thenComparingInt(i -> i));
+
+        int[] ids = new int[size];
+        long[] cellKeys = new long[size];
+        int[] cellStarts = new int[size + 1];
+        int cells = 0;
+        for (int i = 0; i < size; i++) {
+            ids[i] = order[i];
+            long key = keys[order[i]];
+            if (cells == 0 || cellKeys[cells - 1] != key) {
+                cellKeys[cells] = key;
+                cellStarts[cells] = i;
+                cells += 1;
+            }
+        }
+        cellStarts[cells] = size;
+
+        double[] lonRadians = new double[size];
+        double[] latRadians = new double[size];
+        double[] latCosines = new double[size];
+        for (int i = 0; i < size; i++) {
+            lonRadians[i] = Math.toRadians(lons[i]);
+            latRadians[i] = Math.toRadians(lats[i]);
+            latCosines[i] = Math.cos(latRadians[i]);
+        }
+        return new StationGrid(lonRadians, latRadians, latCosines, lonCellMeters,
+                Arrays.copyOf(cellKeys, cells), Arrays.copyOf(cellStarts, cells + 1), ids);
+    }
+
+    /**
+     * Retourne la distance, en mètres, entre les deux positions données, calculée sur une sphère
+     * du rayon moyen de la Terre (formule de haversine).
+     *
+     * @param lon1 la longitude de la première position, en degrés
+     * @param lat1 la latitude de la première position, en degrés
+     * @param lon2 la longitude de la seconde position, en degrés
+     * @param lat2 la latitude de la seconde position, en degrés
+     * @return la distance entre les deux positions, en mètres
+     */
+    public static double distance(double lon1, double lat1, double lon2, double lat2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDLat = Math.sin((phi2 - phi1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        return meters(sinDLat * sinDLat + Math.cos(phi1) * Math.cos(phi2) * sinDLon * sinDLon);
+    }
+
+    /**
+     * Retourne la durée estimée, en minutes entières arrondies vers le haut, de la marche sur la
+     * distance donnée.
+     *
+     * @param meters la distance, en mètres
+     * @return la durée de la marche, en minutes
+     */
+    public static int walkingMinutes(double meters) {
+        return (int) Math.ceil(meters / WALKING_METERS_PER_MINUTE);
+    }
+
+    /**
+     * Retourne la distance, en mètres, entre la gare d'index donné et la position donnée.
+     *
+     * @param stationId l'index de la gare
+     * @param lon       la longitude de la position, en degrés
+     * @param lat       la latitude de la position, en degrés
+     * @return la distance entre la gare et la position, en mètres
+     * @throws IndexOutOfBoundsException si l'index est invalide
+     */
+    public double distance(int stationId, double lon, double lat) {
+        double latRad = Math.toRadians(lat);
+        return meters(haversine(stationId, Math.toRadians(lon), latRad, Math.cos(latRad)));
+    }
+
+    /**
+     * Retourne les index des gares situées à au plus la distance donnée de la position donnée,
+     * par distance croissante puis par index croissant.
+     *
+     * @param lon          la longitude de la position, en degrés
+     * @param lat          la latitude de la position, en degrés
+     * @param radiusMeters la distance maximale, en mètres
+     * @return les index des gares proches, de la plus proche à la plus lointaine
+     * @throws IllegalArgumentException si la distance est négative
+     */
+    public int[] within(double lon, double lat, double radiusMeters) {
+        Preconditions.checkArgument(radiusMeters >= 0);
+        double lonRad = Math.toRadians(lon), latRad = Math.toRadians(lat), cosLat = Math.cos(latRad);
+        double maxH = haversineOf(radiusMeters);
+
+        long[] found = candidates(lon, lat, radiusMeters);
+        int count = 0;
+        for (long c : found) {
+            int id = (int) c;
+            double h = haversine(id, lonRad, latRad, cosLat);
+            if (h <= maxH) found[count++] = pack(h, id);
+        }
+        return sortedIds(found, count, count);
+    }
+
+    /**
+     * Retourne les index des k gares les plus proches de la position donnée, par distance
+     * croissante puis par index croissant. Moins de k gares sont retournées si l'index en
+     * contient moins.
+     *
+     * @param lon la longitude de la position, en degrés
+     * @param lat la latitude de la position, en degrés
+     * @param k   le nombre de gares à retourner
+     * @return les index des k gares les plus proches, de la plus proche à la plus lointaine
+     * @throws IllegalArgumentException si k est négatif
+     */
+    public int[] nearest(double lon, double lat, int k) {
+        Preconditions.checkArgument(k >= 0);
+        int wanted = Math.min(k, stationIds.length);
+        if (wanted == 0) return new int[0];
+        double lonRad = Math.toRadians(lon), latRad = Math.toRadians(lat), cosLat = Math.cos(latRad);
+
+        // Le rayon croît jusqu'à ce que les cases couvertes contiennent k gares, puis est ramené à
+        // la distance de la k-ième : toute gare hors des cases couvertes est alors plus lointaine
+        double radius = CELL_METERS;
+        while (true) {
+            long[] found = candidates(lon, lat, radius);
+            if (found.length < wanted && radius < MAX_DISTANCE_METERS) {
+                radius *= 2;
+                continue;
+            }
+            for (int i = 0; i < found.length; i++) {
+                int id = (int) found[i];
+                found[i] = pack(haversine(id, lonRad, latRad, cosLat), id);
+            }
+            Arrays.sort(found);
+            int kth = (int) found[Math.min(wanted, found.length) - 1];
+            double kthMeters = meters(haversine(kth, lonRad, latRad, cosLat));
+            if (kthMeters < radius || radius >= MAX_DISTANCE_METERS)
+                return sortedIds(found, found.length, wanted);
+            radius = Math.nextUp(kthMeters) + CELL_METERS / 1000;
+        }
+    }
+
+    /**
+     * Retourne, dans les 32 bits de poids faible de chaque élément, les index des gares des cases
+     * couvrant le disque de centre et de rayon donnés, qui contiennent au moins toutes les gares
+     * de ce disque.
+     */
+    private long[] candidates(double lon, double lat, double radiusMeters) {
+        double dLat = radiusMeters / METERS_PER_DEGREE;
+        double maxAbsLat = Math.min(90, Math.abs(lat) + dLat);
+        double cosLat = Math.cos(Math.toRadians(maxAbsLat));
+        double dLon = cosLat <= radiusMeters / MAX_DISTANCE_METERS
+                ? 180
+                : Math.min(180, radiusMeters / (METERS_PER_DEGREE * cosLat));
+
+        long xMin = cellX(lon - dLon, lonCellMeters), xMax = cellX(lon + dLon, lonCellMeters);
+        long yMin = cellY(lat - dLat), yMax = cellY(lat + dLat);
+
+        // Chaque colonne de cases coûte une recherche dichotomique : parcours de toutes les gares
+        // si la zone couvre davantage de colonnes qu'il n'y a de cases non vides
+        if (xMax - xMin + 1 >= cellKeys.length) {
+            long[] all = new long[stationIds.length];
+            for (int i = 0; i < all.length; i++) all[i] = stationIds[i];
+            return all;
+        }
+
+        int count = 0;
+        long[] found = new long[16];
+        for (long x = xMin; x <= xMax; x++) {
+            int cell = Arrays.binarySearch(cellKeys, cellKey(x, yMin));
+            if (cell < 0) cell = -cell - 1;
+            long last = cellKey(x, yMax);
+            for (; cell < cellKeys.length && cellKeys[cell] <= last; cell++) {
+                for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                    if (count == found.length) found = Arrays.copyOf(found, 2 * count);
+                    found[count++] = stationIds[i];
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /** Trie les count premiers éléments empaquetés et retourne les index des limit premiers. */
+    private static int[] sortedIds(long[] packed, int count, int limit) {
+        Arrays.sort(packed, 0, count);
+        int[] ids = new int[Math.min(limit, count)];
+        for (int i = 0; i < ids.length; i++) ids[i] = (int) packed[i];
+        return ids;
+    }
+
+    /**
+     * Retourne le terme de haversine (carré du sinus du demi-angle au centre) entre la gare
+     * d'index donné et la position donnée, qui croît avec leur distance.
+     */
+    private double haversine(int stationId, double lonRad, double latRad, double cosLat) {
+        double sinDLat = Math.sin((latRad - latRadians[stationId]) / 2);
+        double sinDLon = Math.sin((lonRad - lonRadians[stationId]) / 2);
+        return sinDLat * sinDLat + latCosines[stationId] * cosLat * sinDLon * sinDLon;
+    }
+
+    /** Retourne la distance, en mètres, correspondant au terme de haversine donné. */
+    private static double meters(double haversine) {
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+
+    /** Retourne le terme de haversine correspondant à la distance donnée, en mètres. */
+    private static double haversineOf(double meters) {
+        double sinHalf = Math.sin(Math.min(Math.PI, meters / EARTH_RADIUS_METERS) / 2);
+        return sinHalf * sinHalf;
+    }
+
+    /**
+     * Empaquette le terme de haversine (en virgule flottante simple précision, dont l'ordre des
+     * bits est celui des valeurs positives, dans les 32 bits de poids fort) et l'index de la gare.
+     */
+    private static long pack(double haversine, int stationId) {
+        return ((long) Float.floatToRawIntBits((float) haversine) << 32) | stationId;
+    }
+
+    private static long cellX(double lon, double lonCellMeters) {
+        return (long) Math.floor(lon * lonCellMeters / CELL_METERS);
+    }
+
+    private static long cellY(double lat) {
+        return (long) Math.floor(lat * METERS_PER_DEGREE / CELL_METERS);
+    }
+
+    /** Retourne la clé de la case donnée, dont l'ordre est celui des coordonnées (x, y). */
+    private static long cellKey(long x, long y) {
+        return (x << 32) | ((y - Integer.MIN_VALUE) & 0xFFFF_FFFFL);
+    }
+}
@@ -33,4 +33,14 @@ public interface Stations extends Indexed{
      * @throws IndexOutOfBoundsException si l'index est invalide
      */
     double latitude(int id);
+
+    /**
+     * Retourne l'index spatial des gares, permettant de rechercher celles proches d'une position.
+     * L'implémentation par défaut le construit à chaque appel.
+     *
+     * @return l'index spatial des gares
+     */
+    default StationGrid grid() {
+        return StationGrid.of(this);
+    }
 }
@@ -0,0 +1,96 @@
+package ch.epfl.rechor.timetable;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Table aplatie associant à chaque index d'arrêt d'un horaire — gare ou voie/quai — l'index de
+ * sa gare et, pour les voies et quais, leur nom.
+ *
+ * La table est calculée une fois au chargement de l'horaire, afin que les méthodes
+ * {@link TimeTable#stationId(int)}, {@link TimeTable#isPlatformId(int)} et
+ * {@link TimeTable#platformName(int)}, appelées plusieurs fois par liaison lors du calcul d'un
+ * profil, se réduisent à un accès à un tableau.
+ */
+public final class StopStations {
+    private final int stationCount;
+    // Index de la gare de chaque arrêt ; les gares sont leur propre gare
+    private final int[] stationIds;
+    private final String[] platformNames;
+
+    private StopStations(int stationCount, int[] stationIds, String[] platformNames) {
+        this.stationCount = stationCount;
+        this.stationIds = stationIds;
+        this.platformNames = platformNames;
+    }
+
+    /**
+     * Construit la table des arrêts formés des gares et des voies/quais donnés.
+     *
+     * @param stations  les gares
+     * @param platforms les voies et quais
+     * @return la table des arrêts
+     */
+    public static StopStations of(Stations stations, Platforms platforms) {
+        int stationCount = stations.size();
+        int platformCount = platforms.size();
+        int[] stationIds = new int[stationCount + platformCount];
+        String[] platformNames = new String[platformCount];
+        for (int i = 0; i < stationCount; i++) stationIds[i] = i;
+        for (int i = 0; i < platformCount; i++) {
+            stationIds[stationCount + i] = platforms.stationId(i);
+            platformNames[i] = platforms.name(i);
+        }
+        return new StopStations(stationCount, stationIds, platformNames);
+    }
+
+    /**
+     * Retourne le nombre d'arrêts de la table, gares et voies/quais confondus.
+     *
+     * @return le nombre d'arrêts
+     */
+    public int size() {
+        return stationIds.length;
+    }
+
+    /**
+     * Retourne vrai si et seulement si l'index d'arrêt donné est un index de gare.
+     *
+     * @param stopId l'index d'arrêt
+     * @return vrai si l'index correspond à une gare
+     */
+    public boolean isStationId(int stopId) {
+        return stopId < stationCount;
+    }
+
+    /**
+     * Retourne vrai si et seulement si l'index d'arrêt donné est un index de voie ou de quai.
+     *
+     * @param stopId l'index d'arrêt
+     * @return vrai si l'index correspond à une voie ou un quai
+     */
+    public boolean isPlatformId(int stopId) {
+        return stopId >= stationCount && stopId < stationIds.length;
+    }
+
+    /**
+     * Retourne l'index de la gare correspondant à l'arrêt d'index donné.
+     *
+     * @param stopId l'index d'arrêt
+     * @return l'index de la gare associée
+     * @throws IndexOutOfBoundsException si l'index d'arrêt est invalide
+     */
+    public int stationId(int stopId) {
+        return stationIds[stopId];
+    }
+
+    /**
+     * Retourne le nom de voie ou de quai de l'arrêt d'index donné, ou null si c'est une gare.
+     *
+     * @param stopId l'index d'arrêt
+     * @return le nom de la voie/quai ou null si c'est une gare
+     */
+    public String platformName(int stopId) {
+        return isPlatformId(stopId) ? platformNames[stopId - stationCount] : null;
+    }
+}
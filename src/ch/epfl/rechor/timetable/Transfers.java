@@ -46,4 +46,32 @@ public interface Transfers extends Indexed{
      * @throws NoSuchElementException si aucun changement n'est possible entre ces deux gares
      */
     int minutesBetween(int depStationId, int arrStationId);
+
+    /**
+     * Retourne la durée, en minutes, du changement entre les deux gares d'index donnés, ou -1 si
+     * aucun changement n'est possible entre ces deux gares ou si l'un des index est invalide.
+     * L'implémentation par défaut traduit les exceptions de {@link #minutesBetween}.
+     *
+     * @param depStationId l'index de la gare de départ
+     * @param arrStationId l'index de la gare d'arrivée
+     * @return la durée du changement en minutes, ou -1 s'il n'existe pas
+     */
+    default int findMinutesBetween(int depStationId, int arrStationId) {
+        try {
+            return minutesBetween(depStationId, arrStationId);
+        } catch (NoSuchElementException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Retourne le graphe de ces changements, indexé par gare d'arrivée et par gare de départ.
+     * L'implémentation par défaut le construit à chaque appel.
+     *
+     * @param stationCount le nombre de gares de l'horaire
+     * @return le graphe des changements arrivant aux gares d'index inférieur à stationCount
+     */
+    default FootpathGraph footpaths(int stationCount) {
+        return FootpathGraph.of(this, stationCount);
+    }
 }
@@ -1,5 +1,6 @@
 package ch.epfl.rechor.timetable.mapped;
 
+import ch.epfl.rechor.timetable.StationGrid;
 import ch.epfl.rechor.timetable.Stations;
 
 import java.nio.ByteBuffer;
@@ -10,6 +11,7 @@ import java.util.List;
  * * @author Ruben Lellouche (400288)
  * BufferedStations est une implémentation de l'interface Stations qui utilise un StructuredBuffer
  * et une table de chaînes pour gérer les données des stations, notamment leur nom et leurs coordonnées.
+ * L'index spatial des stations est construit dès la création.
  */
 public final class BufferedStations implements Stations {
 
@@ -21,6 +23,7 @@ public final class BufferedStations implements Stations {
 
     private final List<String> stringTable;
     private final StructuredBuffer buffer;
+    private final StationGrid grid;
 
     private final static Structure STRUCTURE = new Structure(
             Structure.field(NAME_ID_OFFSET, Structure.FieldType.U16),
@@ -37,6 +40,7 @@ public final class BufferedStations implements Stations {
     public BufferedStations(List<String> stringTable, ByteBuffer buffer) {
         this.stringTable = stringTable;
         this.buffer = new StructuredBuffer(STRUCTURE, buffer);
+        this.grid = StationGrid.of(this);
     }
 
     /**
@@ -94,4 +98,14 @@ public final class BufferedStations implements Stations {
     public int size() {
         return buffer.size();
     }
+
+    /**
+     * Renvoie l'index spatial des stations, construit à la création.
+     *
+     * @return l'index spatial des stations
+     */
+    @Override
+    public StationGrid grid() {
+        return grid;
+    }
 }
@@ -1,17 +1,25 @@
 package ch.epfl.rechor.timetable.mapped;
 
 import ch.epfl.rechor.PackedRange;
+import ch.epfl.rechor.Preconditions;
+import ch.epfl.rechor.timetable.FootpathGraph;
 import ch.epfl.rechor.timetable.Transfers;
 
 import java.nio.ByteBuffer;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * @author Valentin Walendy (393413)
  * @author Ruben Lellouche (400288)
  *
- * Représente une collection de transferts entre stations sous forme de buffer structuré.
- * Cette implémentation offre un accès rapide aux informations de transfert via un index pré-calculé.
+ * Représente une collection de transferts entre stations, lue depuis un buffer structuré.
+ * Les transferts sont chargés en une fois dans un graphe compact ({@link FootpathGraph}),
+ * indexé aussi bien par gare d'arrivée que par gare de départ, sans supposer que le buffer
+ * soit groupé par gare d'arrivée. Les index des transferts sont leurs index entrants dans
+ * ce graphe, qui sont égaux à leurs index dans le buffer lorsque celui-ci est ainsi groupé.
+ * Les changements arrivant aux gares qui en ont beaucoup sont en outre rangés dans une table de
+ * hachage des paires de gares, afin que minutesBetween s'exécute en temps constant.
  */
 public final class BufferedTransfers implements Transfers {
 
@@ -25,67 +33,74 @@ public final class BufferedTransfers implements Transfers {
             Structure.field(TRANSFER_MINUTES, Structure.FieldType.U8)
     );
 
-    private final StructuredBuffer buffer;
-    private final int[] arrivingAtTable;
+    // Longueur maximale d'un intervalle de changements parcouru linéairement par minutesBetween
+    private static final int LINEAR_SCAN_LIMIT = 8;
+    // Multiplicateur du hachage de Fibonacci (partie fractionnaire du nombre d'or)
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    // Nombre de bits de la durée, augmentée de 1, dans une case de la table de hachage
+    private static final int MINUTES_BITS = 9;
+
+    private final FootpathGraph graph;
+
+    // Table de hachage des paires de gares : chaque case contient la clé de la paire suivie
+    // de la durée du changement augmentée de 1, afin qu'une case vide vaille 0
+    private final long[] pairs;
+    private final int pairShift;
 
     /**
      * Construit un BufferedTransfers à partir d'un ByteBuffer brut.
-     * Pré-calcule la table arrivingAtTable pour une lecture rapide.
+     * Construit le graphe des changements et la table de hachage des paires de gares
+     * pour une lecture rapide ; le buffer n'est plus utilisé ensuite.
      *
      * @param buffer Le ByteBuffer contenant les données de tous les transferts.
      */
     public BufferedTransfers(ByteBuffer buffer) {
-        this.buffer = new StructuredBuffer(STRUCTURE, buffer);
-
-        int n = this.buffer.size();
-
-        if (n == 0) {
-            this.arrivingAtTable = new int[0];
-            return;
+        StructuredBuffer structured = new StructuredBuffer(STRUCTURE, buffer);
+        this.graph = FootpathGraph.of(
+                structured.size(),
+                i -> structured.getU16(DEP_STATION_ID, i),
+                i -> structured.getU16(ARR_STATION_ID, i),
+                i -> structured.getU8(TRANSFER_MINUTES, i));
+
+        int hashed = 0;
+        for (int arr = 0; arr < graph.stationCount(); arr++) {
+            int length = PackedRange.length(graph.arrivingAt(arr));
+            if (length > LINEAR_SCAN_LIMIT) hashed += length;
         }
 
-        int maxArrId = -1;
-        for (int i = 0; i < n; i++) {
-            int arrId = this.buffer.getU16(ARR_STATION_ID, i);
-            if (arrId > maxArrId) {
-                maxArrId = arrId;
+        // Adressage ouvert, avec une table au plus à moitié pleine
+        int capacity = Integer.highestOneBit(Math.max(1, hashed) * 2) << 1;
+        this.pairs     = new long[capacity];
+        this.pairShift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        for (int arr = 0; arr < graph.stationCount(); arr++) {
+            int range = graph.arrivingAt(arr);
+            if (PackedRange.length(range) <= LINEAR_SCAN_LIMIT) continue;
+            for (int idx = PackedRange.startInclusive(range); idx < PackedRange.endExclusive(range); idx++) {
+                int key  = pairKey(depStationId(idx), arr);
+                int slot = slotOf(key);
+                // En cas de doublon, le premier changement est conservé, comme lors d'un parcours
+                if (pairs[slot] == 0)
+                    pairs[slot] = (Integer.toUnsignedLong(key) << MINUTES_BITS) | (minutes(idx) + 1);
             }
         }
-
-        this.arrivingAtTable = new int[maxArrId + 1];
-
-        int i = 0;
-        while (i < n) {
-            int currentArr = this.buffer.getU16(ARR_STATION_ID, i);
-            int start      = i;
-
-            while (i < n
-                    && this.buffer.getU16(ARR_STATION_ID, i) == currentArr) {
-                i++;
-            }
-
-            int end = i;
-            int packedInterval = PackedRange.pack(start, end);
-            arrivingAtTable[currentArr] = packedInterval;
-        }
     }
 
     /** Retourne la station de départ pour le transfert donné. */
     @Override
     public int depStationId(int id) {
-        return buffer.getU16(DEP_STATION_ID, id);
+        return graph.depStationId(id);
     }
 
     /** Retourne la durée en minutes pour le transfert donné. */
     @Override
     public int minutes(int id) {
-        return buffer.getU8(TRANSFER_MINUTES, id);
+        return graph.inMinutes(id);
     }
 
     /** Retourne l'intervalle d'indices des transferts arrivant à la station spécifiée. */
     @Override
     public int arrivingAt(int stationId) {
-        return arrivingAtTable[stationId];
+        return graph.arrivingAt(Objects.checkIndex(stationId, graph.stationCount()));
     }
 
     /**
@@ -94,22 +109,74 @@ public final class BufferedTransfers implements Transfers {
      */
     @Override
     public int minutesBetween(int depStationId, int arrStationId) {
-        int range = arrivingAt(arrStationId);
+        Objects.checkIndex(arrStationId, graph.stationCount());
+        int minutes = findMinutesBetween(depStationId, arrStationId);
+        if (minutes < 0) throw new NoSuchElementException();
+        return minutes;
+    }
 
-        for (int idx = PackedRange.startInclusive(range);
-             idx < PackedRange.endExclusive(range);
-             idx++) {
-            if (depStationId(idx) == depStationId) {
-                return minutes(idx);
+    /**
+     * Retourne la durée du transfert entre deux stations, ou -1 si aucun transfert n'existe
+     * ou si l'une des stations est inconnue, sans lever d'exception.
+     */
+    @Override
+    public int findMinutesBetween(int depStationId, int arrStationId) {
+        if (arrStationId < 0 || arrStationId >= graph.stationCount()) return -1;
+        int range = graph.arrivingAt(arrStationId);
+
+        if (PackedRange.length(range) <= LINEAR_SCAN_LIMIT) {
+            for (int idx = PackedRange.startInclusive(range);
+                 idx < PackedRange.endExclusive(range);
+                 idx++) {
+                if (depStationId(idx) == depStationId) {
+                    return minutes(idx);
+                }
             }
+            return -1;
         }
 
-        throw new NoSuchElementException();
+        if (depStationId < 0 || depStationId > 0xFFFF) return -1;
+        long pair = pairs[slotOf(pairKey(depStationId, arrStationId))];
+        if (pair == 0) return -1;
+        return (int) (pair & ((1 << MINUTES_BITS) - 1)) - 1;
+    }
+
+    /** Retourne la clé de hachage de la paire de gares donnée. */
+    private static int pairKey(int depStationId, int arrStationId) {
+        return (depStationId << 16) | arrStationId;
+    }
+
+    /**
+     * Retourne la case de la table de hachage contenant la clé donnée, ou la première case
+     * vide rencontrée si la clé n'y figure pas (sondage linéaire).
+     */
+    private int slotOf(int key) {
+        int mask = pairs.length - 1;
+        long keyBits = Integer.toUnsignedLong(key);
+        int slot = (key * HASH_MULTIPLIER) >>> pairShift;
+        while (pairs[slot] != 0 && pairs[slot] >>> MINUTES_BITS != keyBits)
+            slot = (slot + 1) & mask;
+        return slot;
     }
 
     /** Retourne le nombre total de transferts stockés. */
     @Override
     public int size() {
-        return buffer.size();
+        return graph.size();
+    }
+
+    /**
+     * Retourne le graphe des changements arrivant aux gares d'index inférieur au nombre donné.
+     * Lorsque ce nombre couvre toutes les gares d'arrivée, il s'agit du graphe construit une fois
+     * pour toutes à la création ; sinon, un graphe restreint est construit.
+     *
+     * @throws IllegalArgumentException si le nombre de gares est négatif
+     */
+    @Override
+    public FootpathGraph footpaths(int stationCount) {
+        Preconditions.checkArgument(stationCount >= 0);
+        return stationCount >= graph.stationCount()
+                ? graph
+                : FootpathGraph.of(this, stationCount);
     }
 }
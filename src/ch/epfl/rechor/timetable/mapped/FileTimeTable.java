@@ -1,6 +1,5 @@
 package ch.epfl.rechor.timetable.mapped;
 
-import ch.epfl.rechor.journey.ParetoFront;
 import ch.epfl.rechor.timetable.*;
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -13,6 +12,13 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.List;
 
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Horaire dont les données sont projetées en mémoire depuis les fichiers d'un dossier.
+ * La libération des projections est laissée au ramasse-miettes.
+ */
 public record FileTimeTable(
         Path directory,
         List<String> stringTable,
@@ -20,9 +26,32 @@ public record FileTimeTable(
         StationAliases stationAliases,
         Platforms platforms,
         Routes routes,
-        Transfers transfers
+        Transfers transfers,
+        StopStations stops
 ) implements TimeTable {
 
+    /**
+     * Construit un horaire à partir des données données, en calculant la table des gares
+     * de chaque arrêt.
+     *
+     * @param directory      le dossier de l'horaire
+     * @param stringTable    la table des chaînes
+     * @param stations       les gares
+     * @param stationAliases les noms alternatifs des gares
+     * @param platforms      les voies et quais
+     * @param routes         les lignes
+     * @param transfers      les changements
+     */
+    public FileTimeTable(Path directory,
+                         List<String> stringTable,
+                         Stations stations,
+                         StationAliases stationAliases,
+                         Platforms platforms,
+                         Routes routes,
+                         Transfers transfers) {
+        this(directory, stringTable, stations, stationAliases, platforms, routes, transfers,
+                StopStations.of(stations, platforms));
+    }
 
     /**
      * @author Valentin Walendy (393413)
@@ -36,10 +65,10 @@ public record FileTimeTable(
      * @return Une instance de FileTimeTable.
      * @throws IOException En cas d'erreur d'E/S.
      */
-    public static TimeTable in(Path directory) throws IOException {
+    public static FileTimeTable in(Path directory) throws IOException {
         try {
             Path stringsPath = directory.resolve("strings.txt");
-            List<String> strings = List.copyOf(Files.readAllLines(stringsPath, StandardCharsets.ISO_8859_1));
+            List<String> strings = List.copyOf(Files.readAllLines(TimeTableStore.resolve(stringsPath), StandardCharsets.ISO_8859_1));
 
             ByteBuffer stationsBuffer = mapFile(directory.resolve("stations.bin"));
             Stations stations = new BufferedStations(strings, stationsBuffer);
@@ -63,14 +92,15 @@ public record FileTimeTable(
     }
 
     /**
-     * Mappe en mémoire un fichier en mode lecture seule.
+     * Mappe en mémoire un fichier en mode lecture seule, en suivant son éventuel renvoi vers
+     * le stockage dédupliqué (voir {@link TimeTableStore}).
      *
      * @param filePath Le chemin du fichier à mapper.
      * @return Un ByteBuffer contenant les données du fichier.
      * @throws IOException En cas d'erreur d'accès.
      */
     private static ByteBuffer mapFile(Path filePath) throws IOException {
-        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+        try (FileChannel fileChannel = FileChannel.open(TimeTableStore.resolve(filePath), StandardOpenOption.READ)) {
             return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
         }
     }
@@ -100,6 +130,26 @@ public record FileTimeTable(
         return transfers;
     }
 
+    @Override
+    public boolean isStationId(int stopId) {
+        return stops.isStationId(stopId);
+    }
+
+    @Override
+    public boolean isPlatformId(int stopId) {
+        return stops.isPlatformId(stopId);
+    }
+
+    @Override
+    public int stationId(int stopId) {
+        return stops.stationId(stopId);
+    }
+
+    @Override
+    public String platformName(int stopId) {
+        return stops.platformName(stopId);
+    }
+
     /**
      * Retourne les courses pour la date donnée.
      * Le fichier des courses est attendu dans le sous-dossier correspondant à la date.
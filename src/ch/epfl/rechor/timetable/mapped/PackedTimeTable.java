@@ -0,0 +1,318 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import ch.epfl.rechor.timetable.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Horaire dont les données sont projetées en mémoire depuis un unique fichier empaqueté,
+ * regroupant tous les fichiers du dossier d'un horaire, jours compris.
+ *
+ * Le fichier débute par un en-tête contenant un nombre magique, la version du format et le nombre
+ * de sections, suivi de la table des sections : pour chacune, son nom (le chemin du fichier
+ * d'origine relativement au dossier de l'horaire, p. ex. {@code 2025-03-18/trips.bin}, encodé en
+ * ASCII et précédé de sa longueur sur 16 bits), sa position et sa taille en octets (sur 64 bits).
+ * Viennent ensuite les sections, chacune alignée sur {@value #ALIGNMENT} octets, celles d'un même
+ * jour étant contiguës.
+ *
+ * Le fichier n'est ouvert et projeté qu'une seule fois, chaque structure lisant une tranche de
+ * cette projection. Comme pour {@link FileTimeTable}, la libération de la projection est laissée
+ * au ramasse-miettes.
+ */
+public final class PackedTimeTable implements TimeTable {
+    /** Extension usuelle des fichiers empaquetés. */
+    public static final String EXTENSION = ".rechor";
+
+    private static final int MAGIC = 0x52_43_50_54; // "RCPT"
+    private static final int VERSION = 1;
+    private static final int ALIGNMENT = 8;
+    private static final List<String> BASE_FILES = List.of(
+            "strings.txt", "stations.bin", "station-aliases.bin", "platforms.bin", "routes.bin", "transfers.bin");
+    private static final List<String> DAY_FILES = List.of(
+            "connections.bin", "connections-succ.bin", "trips.bin");
+
+    private final Path file;
+    private final ByteBuffer mapped;
+    private final Map<String, Section> sections;
+    private final NavigableSet<LocalDate> days;
+    private final List<String> stringTable;
+    private final Stations stations;
+    private final StationAliases stationAliases;
+    private final Platforms platforms;
+    private final Routes routes;
+    private final Transfers transfers;
+    private final StopStations stops;
+
+    private PackedTimeTable(Path file, ByteBuffer mapped, Map<String, Section> sections) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        this.sections = sections;
+
+        NavigableSet<LocalDate> days = new TreeSet<>();
+        for (String name : sections.keySet()) {
+            int slash = name.indexOf('/');
+            if (slash < 0) continue;
+            try {
+                days.add(LocalDate.parse(name.substring(0, slash)));
+            } catch (DateTimeParseException e) {
+                throw new IOException("Section invalide dans " + file + " : " + name);
+            }
+        }
+        this.days = Collections.unmodifiableNavigableSet(days);
+
+        ByteBuffer strings = baseSection("strings.txt");
+        byte[] bytes = new byte[strings.capacity()];
+        strings.get(0, bytes);
+        this.stringTable = new String(bytes, StandardCharsets.ISO_8859_1).lines().toList();
+
+        this.stations = new BufferedStations(stringTable, baseSection("stations.bin"));
+        this.stationAliases = new BufferedStationAliases(stringTable, baseSection("station-aliases.bin"));
+        this.platforms = new BufferedPlatforms(stringTable, baseSection("platforms.bin"));
+        this.routes = new BufferedRoutes(stringTable, baseSection("routes.bin"));
+        this.transfers = new BufferedTransfers(baseSection("transfers.bin"));
+        this.stops = StopStations.of(stations, platforms);
+    }
+
+    /**
+     * Retourne l'horaire contenu dans le fichier empaqueté donné, en projetant celui-ci en mémoire.
+     *
+     * @param file le fichier empaqueté
+     * @return l'horaire
+     * @throws IOException en cas d'erreur de lecture, ou si le fichier n'est pas un horaire
+     *                     empaqueté valide
+     */
+    public static PackedTimeTable in(Path file) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(TimeTableStore.resolve(file), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Horaire empaqueté trop volumineux : " + file);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new PackedTimeTable(file, mapped, readSections(file, mapped));
+    }
+
+    /**
+     * Empaquette l'horaire situé dans le dossier donné dans le fichier donné, en remplaçant
+     * atomiquement son éventuel contenu. Les fichiers de chaque jour absents du dossier sont
+     * également absents du fichier empaqueté.
+     *
+     * @param directory le dossier de l'horaire
+     * @param file      le fichier empaqueté
+     * @return le nombre de sections écrites
+     * @throws IOException en cas d'erreur d'entrée/sortie, ou si l'un des fichiers communs à
+     *                     tous les jours est absent
+     */
+    public static int write(Path directory, Path file) throws IOException {
+        List<String> names = new ArrayList<>(BASE_FILES);
+        List<String> dayNames = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path child : children) {
+                try {
+                    LocalDate.parse(child.getFileName().toString());
+                } catch (DateTimeParseException e) {
+                    continue; // Sous-dossier qui n'est pas un jour
+                }
+                for (String dayFile : DAY_FILES) {
+                    if (Files.exists(TimeTableStore.resolve(child.resolve(dayFile))))
+                        dayNames.add(child.getFileName() + "/" + dayFile);
+                }
+            }
+        }
+        // Les noms ISO des jours sont triés chronologiquement, et les fichiers d'un jour groupés
+        dayNames.sort(Comparator.comparing((String n) -> n.substring(0, n.indexOf('/')))
+                .thenComparing(n -> DAY_FILES.indexOf(n.substring(n.indexOf('/') + 1))));
+        names.addAll(dayNames);
+
+        long[] sizes = new long[names.size()];
+        long position = 3 * Integer.BYTES;
+        for (int i = 0; i < names.size(); i++) {
+            sizes[i] = Files.size(TimeTableStore.resolve(directory.resolve(names.get(i))));
+            position += Short.BYTES + names.get(i).length() + 2 * Long.BYTES;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(Math.toIntExact(align(position)));
+        header.putInt(MAGIC).putInt(VERSION).putInt(names.size());
+        long[] offsets = new long[names.size()];
+        position = header.capacity();
+        for (int i = 0; i < names.size(); i++) {
+            byte[] name = names.get(i).getBytes(StandardCharsets.US_ASCII);
+            offsets[i] = position;
+            header.putShort((short) name.length).put(name).putLong(offsets[i]).putLong(sizes[i]);
+            position = align(position + sizes[i]);
+        }
+        header.clear();
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) out.write(header);
+                for (int i = 0; i < names.size(); i++) {
+                    ByteBuffer content = ByteBuffer.wrap(
+                            Files.readAllBytes(TimeTableStore.resolve(directory.resolve(names.get(i)))));
+                    long at = offsets[i];
+                    while (content.hasRemaining()) at += out.write(content, at);
+                }
+                // Taille finale, y compris l'alignement de la dernière section
+                if (out.size() < position) out.write(ByteBuffer.allocate(1), position - 1);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return names.size();
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static Map<String, Section> readSections(Path file, ByteBuffer b) throws IOException {
+        try {
+            if (b.getInt(0) != MAGIC || b.getInt(4) != VERSION)
+                throw new IOException("Fichier d'horaire empaqueté invalide : " + file);
+            int count = b.getInt(8);
+            Map<String, Section> sections = new HashMap<>();
+            ByteBuffer toc = b.duplicate().position(3 * Integer.BYTES);
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(toc.getShort())];
+                toc.get(name);
+                long offset = toc.getLong();
+                long length = toc.getLong();
+                if (offset < 0 || length < 0 || offset + length > b.capacity())
+                    throw new IOException("Section hors du fichier " + file);
+                sections.put(new String(name, StandardCharsets.US_ASCII),
+                        new Section((int) offset, (int) length));
+            }
+            return Map.copyOf(sections);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Fichier d'horaire empaqueté tronqué : " + file, e);
+        }
+    }
+
+    /** Position et taille d'une section dans la projection du fichier. */
+    private record Section(int offset, int length) {}
+
+    private ByteBuffer baseSection(String name) throws IOException {
+        Section section = sections.get(name);
+        if (section == null) throw new NoSuchFileException(file + " : " + name);
+        return mapped.slice(section.offset(), section.length());
+    }
+
+    private ByteBuffer daySection(LocalDate date, String name) {
+        Section section = sections.get(date + "/" + name);
+        if (section == null)
+            throw new UncheckedIOException(new NoSuchFileException(file + " : " + date + "/" + name));
+        return mapped.slice(section.offset(), section.length());
+    }
+
+    /**
+     * Retourne le fichier empaqueté de l'horaire.
+     *
+     * @return le fichier
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Retourne les jours dont le fichier empaqueté contient au moins une section.
+     *
+     * @return les jours, triés
+     */
+    public NavigableSet<LocalDate> days() {
+        return days;
+    }
+
+    /**
+     * Retourne la table des chaînes de l'horaire.
+     *
+     * @return la table des chaînes
+     */
+    public List<String> stringTable() {
+        return stringTable;
+    }
+
+    @Override
+    public Stations stations() {
+        return stations;
+    }
+
+    @Override
+    public StationAliases stationAliases() {
+        return stationAliases;
+    }
+
+    @Override
+    public Platforms platforms() {
+        return platforms;
+    }
+
+    @Override
+    public Routes routes() {
+        return routes;
+    }
+
+    @Override
+    public Transfers transfers() {
+        return transfers;
+    }
+
+    @Override
+    public boolean isStationId(int stopId) {
+        return stops.isStationId(stopId);
+    }
+
+    @Override
+    public boolean isPlatformId(int stopId) {
+        return stops.isPlatformId(stopId);
+    }
+
+    @Override
+    public int stationId(int stopId) {
+        return stops.stationId(stopId);
+    }
+
+    @Override
+    public String platformName(int stopId) {
+        return stops.platformName(stopId);
+    }
+
+    /**
+     * Retourne les courses pour la date donnée, lues dans la section du fichier empaqueté
+     * correspondant au fichier {@code trips.bin} du jour.
+     *
+     * @param date la date des courses
+     * @return les courses
+     * @throws UncheckedIOException si le fichier empaqueté ne contient pas les courses du jour
+     */
+    @Override
+    public Trips tripsFor(LocalDate date) {
+        return new BufferedTrips(stringTable, daySection(date, "trips.bin"));
+    }
+
+    /**
+     * Retourne les liaisons pour la date donnée, lues dans les sections du fichier empaqueté
+     * correspondant aux fichiers {@code connections.bin} et {@code connections-succ.bin} du jour.
+     *
+     * @param date la date des liaisons
+     * @return les liaisons
+     * @throws UncheckedIOException si le fichier empaqueté ne contient pas les liaisons du jour
+     */
+    @Override
+    public Connections connectionsFor(LocalDate date) {
+        return new BufferedConnections(
+                daySection(date, "connections.bin"), daySection(date, "connections-succ.bin"));
+    }
+}
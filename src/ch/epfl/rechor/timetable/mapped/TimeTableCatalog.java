@@ -0,0 +1,335 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Catalogue des instantanés d'horaire contenus dans un dossier, p. ex. un instantané par semaine
+ * ({@code timetables/timetable-03-17}, {@code timetables/timetable-03-24}, …).
+ *
+ * Un instantané est un sous-dossier contenant un fichier {@code strings.txt}. Ses jours sont
+ * ceux de ses propres sous-dossiers nommés selon la norme ISO ({@code 2025-03-17}, …). Chaque
+ * date est servie par l'instantané le plus récent qui la contient, le plus récent étant celui
+ * dont le premier jour est le plus tardif. Un instantané n'est ouvert qu'à sa première
+ * utilisation.
+ *
+ * Les instantanés sont obtenus au moyen de baux ({@link Lease}), à fermer après utilisation.
+ * {@link #reload()} peut remplacer à tout moment l'index du catalogue, p. ex. après l'ajout
+ * d'une nouvelle semaine : les requêtes en cours terminent sur l'instantané qu'elles ont obtenu,
+ * et un instantané qui ne sert plus aucune date est fermé à la fin de son dernier bail : le
+ * catalogue oublie alors son horaire (voir {@link #isOpen(FileTimeTable)}), dont les
+ * projections sont libérées par le ramasse-miettes.
+ * Un nouvel instantané doit être déposé atomiquement, p. ex. en renommant un dossier complet.
+ */
+public final class TimeTableCatalog implements AutoCloseable {
+    private static final String STRINGS_FILE = "strings.txt";
+
+    private final Path root;
+    // Index courant, remplacé en bloc, sous le verrou du catalogue, par reload et close
+    private volatile Index index = Index.EMPTY;
+    private boolean closed;
+    // Horaires des instantanés ouverts et pas encore fermés
+    private final Set<FileTimeTable> open = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    private TimeTableCatalog(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Retourne le catalogue des instantanés contenus dans le dossier donné, ou formé de ce seul
+     * dossier s'il est lui-même un instantané. Aucun instantané n'est ouvert.
+     *
+     * @param root le dossier des instantanés
+     * @return le catalogue
+     * @throws IOException en cas d'erreur de lecture du dossier
+     */
+    public static TimeTableCatalog in(Path root) throws IOException {
+        TimeTableCatalog catalog = new TimeTableCatalog(root);
+        catalog.reload();
+        return catalog;
+    }
+
+    /**
+     * Parcourt à nouveau le dossier des instantanés et, s'il a changé, remplace atomiquement
+     * l'index du catalogue. Les instantanés inchangés sont conservés tels quels, ouverts ou non ;
+     * ceux qui ne servent plus aucune date sont fermés dès la fin de leur dernier bail.
+     *
+     * @return vrai ssi l'index a changé
+     * @throws IOException           en cas d'erreur de lecture du dossier
+     * @throws IllegalStateException si le catalogue est fermé
+     */
+    public synchronized boolean reload() throws IOException {
+        if (closed) throw new IllegalStateException("Catalogue fermé");
+        Index old = index;
+        Index fresh = Index.of(scan(old));
+        if (fresh.snapshots.equals(old.snapshots) && fresh.byDate.equals(old.byDate)) return false;
+
+        index = fresh;
+        for (Snapshot snapshot : old.snapshots)
+            if (!fresh.snapshots.contains(snapshot)) snapshot.retire();
+        return true;
+    }
+
+    /**
+     * Retourne un bail sur l'instantané servant la date donnée, en l'ouvrant si nécessaire.
+     *
+     * @param date la date
+     * @return le bail, à fermer après utilisation
+     * @throws NoSuchElementException si aucun instantané ne contient la date
+     * @throws UncheckedIOException   si l'instantané ne peut être ouvert
+     */
+    public Lease lease(LocalDate date) {
+        while (true) {
+            Snapshot snapshot = index.byDate.get(date);
+            if (snapshot == null) throw new NoSuchElementException("Aucun horaire pour le " + date);
+            Lease lease = snapshot.tryAcquire();
+            // Instantané retiré entre-temps : l'index a été remplacé
+            if (lease != null) return lease;
+        }
+    }
+
+    /**
+     * Retourne un bail sur l'instantané le plus récent, en l'ouvrant si nécessaire.
+     *
+     * @return le bail, à fermer après utilisation
+     * @throws NoSuchElementException si le catalogue ne contient aucun instantané
+     * @throws UncheckedIOException   si l'instantané ne peut être ouvert
+     */
+    public Lease latest() {
+        while (true) {
+            List<Snapshot> snapshots = index.snapshots;
+            if (snapshots.isEmpty()) throw new NoSuchElementException("Aucun horaire");
+            Lease lease = snapshots.getLast().tryAcquire();
+            if (lease != null) return lease;
+        }
+    }
+
+    /**
+     * Retourne vrai ssi l'horaire donné est celui d'un instantané ouvert par ce catalogue et pas
+     * encore fermé, c.-à-d. qui sert encore au moins une date ou dont un bail est en cours.
+     * Les données associées à un horaire fermé peuvent être oubliées.
+     *
+     * @param timeTable l'horaire
+     * @return vrai ssi l'instantané de l'horaire est ouvert
+     */
+    public boolean isOpen(FileTimeTable timeTable) {
+        return open.contains(timeTable);
+    }
+
+    /**
+     * Retourne le dossier de l'instantané servant la date donnée, sans l'ouvrir.
+     *
+     * @param date la date
+     * @return le dossier de l'instantané, ou rien si aucun ne contient la date
+     */
+    public Optional<Path> directoryFor(LocalDate date) {
+        return Optional.ofNullable(index.byDate.get(date)).map(s -> s.directory);
+    }
+
+    /**
+     * Retourne les dossiers des instantanés servant au moins une date, du plus ancien au
+     * plus récent.
+     *
+     * @return les dossiers des instantanés
+     */
+    public List<Path> directories() {
+        return index.snapshots.stream().map(s -> s.directory).toList();
+    }
+
+    /**
+     * Ferme le catalogue : aucun nouveau bail ne peut plus être obtenu, et chaque instantané
+     * ouvert est fermé à la fin de son dernier bail.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        Index old = index;
+        index = Index.EMPTY;
+        for (Snapshot snapshot : old.snapshots) snapshot.retire();
+    }
+
+    /** Retourne les instantanés du dossier racine, en réutilisant ceux de l'index donné. */
+    private List<Snapshot> scan(Index current) throws IOException {
+        Map<Path, Snapshot> known = new HashMap<>();
+        for (Snapshot snapshot : current.snapshots) known.put(snapshot.directory, snapshot);
+
+        List<Path> directories = new ArrayList<>();
+        if (Files.isRegularFile(TimeTableStore.resolve(root.resolve(STRINGS_FILE)))) {
+            directories.add(root);
+        } else {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path child : children)
+                    if (Files.isRegularFile(TimeTableStore.resolve(child.resolve(STRINGS_FILE)))) directories.add(child);
+            }
+        }
+
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Path directory : directories) {
+            Snapshot snapshot;
+            try {
+                snapshot = new Snapshot(directory,
+                        Files.getLastModifiedTime(TimeTableStore.resolve(directory.resolve(STRINGS_FILE))),
+                        days(directory), open);
+            } catch (NoSuchFileException e) {
+                continue; // Instantané supprimé pendant le parcours
+            }
+            if (snapshot.days.isEmpty()) continue;
+            Snapshot previous = known.get(directory);
+            snapshots.add(previous != null && previous.sameContent(snapshot) ? previous : snapshot);
+        }
+        return snapshots;
+    }
+
+    private static NavigableSet<LocalDate> days(Path directory) throws IOException {
+        NavigableSet<LocalDate> days = new TreeSet<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path child : children) {
+                try {
+                    days.add(LocalDate.parse(child.getFileName().toString()));
+                } catch (DateTimeParseException e) {
+                    // Sous-dossier qui n'est pas un jour
+                }
+            }
+        }
+        return Collections.unmodifiableNavigableSet(days);
+    }
+
+    /**
+     * Bail sur un instantané ouvert, qui le maintient ouvert jusqu'à sa fermeture. L'horaire
+     * obtenu d'un bail ne doit plus être utilisé une fois celui-ci fermé.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Snapshot snapshot;
+        private final FileTimeTable timeTable;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(Snapshot snapshot, FileTimeTable timeTable) {
+            this.snapshot = snapshot;
+            this.timeTable = timeTable;
+        }
+
+        /**
+         * Retourne l'horaire de l'instantané.
+         *
+         * @return l'horaire
+         */
+        public FileTimeTable timeTable() {
+            return timeTable;
+        }
+
+        /**
+         * Retourne le dossier de l'instantané.
+         *
+         * @return le dossier
+         */
+        public Path directory() {
+            return snapshot.directory;
+        }
+
+        /**
+         * Retourne les jours de l'instantané.
+         *
+         * @return les jours, triés
+         */
+        public NavigableSet<LocalDate> days() {
+            return snapshot.days;
+        }
+
+        /**
+         * Ferme ce bail. Les appels suivants n'ont aucun effet.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) snapshot.release();
+        }
+    }
+
+    /** Instantané, ouvert à sa première utilisation et fermé une fois retiré et inutilisé. */
+    private static final class Snapshot {
+        private final Path directory;
+        private final FileTime version;
+        private final NavigableSet<LocalDate> days;
+        private final Set<FileTimeTable> open;
+        private FileTimeTable timeTable;
+        private int leases;
+        private boolean retired;
+
+        Snapshot(Path directory, FileTime version, NavigableSet<LocalDate> days, Set<FileTimeTable> open) {
+            this.directory = directory;
+            this.version = version;
+            this.days = days;
+            this.open = open;
+        }
+
+        boolean sameContent(Snapshot that) {
+            return version.equals(that.version) && days.equals(that.days);
+        }
+
+        synchronized Lease tryAcquire() {
+            if (retired) return null;
+            if (timeTable == null) {
+                try {
+                    timeTable = FileTimeTable.in(directory);
+                    open.add(timeTable);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            leases += 1;
+            return new Lease(this, timeTable);
+        }
+
+        synchronized void release() {
+            leases -= 1;
+            closeIfUnused();
+        }
+
+        synchronized void retire() {
+            retired = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (retired && leases == 0 && timeTable != null) {
+                open.remove(timeTable);
+                timeTable = null;
+            }
+        }
+    }
+
+    /** Index immuable des instantanés : ceux qui servent au moins une date, et chaque date. */
+    private record Index(List<Snapshot> snapshots, Map<LocalDate, Snapshot> byDate) {
+        static final Index EMPTY = new Index(List.of(), Map.of());
+
+        static Index of(List<Snapshot> scanned) {
+            List<Snapshot> ordered = new ArrayList<>(scanned);
+            ordered.sort(Comparator
+                    .comparing((Snapshot s) -> s.days.first())
+                    .thenComparing(s -> s.directory));
+
+            // Les instantanés plus récents remplacent les plus anciens pour leurs jours
+            Map<LocalDate, Snapshot> byDate = new HashMap<>();
+            for (Snapshot snapshot : ordered)
+                for (LocalDate day : snapshot.days) byDate.put(day, snapshot);
+
+            Set<Snapshot> serving = Collections.newSetFromMap(new IdentityHashMap<>());
+            serving.addAll(byDate.values());
+            ordered.removeIf(s -> !serving.contains(s));
+            return new Index(List.copyOf(ordered), Map.copyOf(byDate));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ch.epfl.rechor.timetable.mapped;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author Valentin Walendy (393413)
+ * @author Ruben Lellouche (400288)
+ *
+ * Stockage dédupliqué des fichiers des instantanés d'horaire d'un dossier.
+ *
+ * Les instantanés hebdomadaires successifs répètent la plupart de leurs fichiers, communs ou
+ * journaliers. La déduplication range chaque contenu distinct une seule fois dans un magasin
+ * adressé par contenu, le dossier {@value #STORE_DIRECTORY} du dossier des instantanés, où il
+ * est nommé d'après son empreinte SHA-256. Chaque fichier d'un instantané devient ensuite :
+ * <ul>
+ *     <li>un lien physique vers le contenu du magasin, si le système de fichiers le permet,
+ *     ce qui est transparent pour les lecteurs ;</li>
+ *     <li>sinon, un fichier de renvoi portant le même nom suivi de {@value #REF_SUFFIX}, qui
+ *     contient le chemin du contenu relativement au dossier du fichier, et que
+ *     {@link #resolve(Path)} suit.</li>
+ * </ul>
+ * Le contenu d'un fichier n'est jamais modifié en place, de sorte que ses projections en
+ * mémoire restent valides pendant la déduplication.
+ */
+public final class TimeTableStore {
+    /** Nom du dossier du magasin dans le dossier des instantanés. */
+    public static final String STORE_DIRECTORY = ".store";
+    /** Suffixe des fichiers de renvoi vers le magasin. */
+    public static final String REF_SUFFIX = ".ref";
+
+    // Fichiers dérivés, propres à chaque instantané
+    private static final List<String> EXCLUDED = List.of("stop-index.bin");
+
+    private TimeTableStore() {}
+
+    /**
+     * Retourne le chemin du contenu du fichier donné : le fichier lui-même s'il existe, sinon le
+     * contenu du magasin désigné par son fichier de renvoi, s'il en a un, et le fichier lui-même
+     * dans le cas contraire.
+     *
+     * @param file le fichier
+     * @return le chemin de son contenu
+     * @throws UncheckedIOException si le fichier de renvoi ne peut être lu
+     */
+    public static Path resolve(Path file) {
+        if (Files.exists(file)) return file;
+        Path ref = file.resolveSibling(file.getFileName() + REF_SUFFIX);
+        if (!Files.isRegularFile(ref)) return file;
+        try {
+            return file.resolveSibling(Files.readString(ref, StandardCharsets.UTF_8).strip()).normalize();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bilan d'une déduplication.
+     *
+     * @param files        le nombre de fichiers examinés
+     * @param bytes        leur taille totale, en octets
+     * @param uniqueFiles  le nombre de contenus distincts, c.-à-d. de fichiers du magasin
+     * @param uniqueBytes  leur taille totale, en octets
+     * @param linkedFiles  le nombre de fichiers remplacés lors de cette déduplication
+     */
+    public record Report(int files, long bytes, int uniqueFiles, long uniqueBytes, int linkedFiles) {}
+
+    /**
+     * Déduplique les fichiers de tous les instantanés du dossier donné, c.-à-d. de ses
+     * sous-dossiers et des sous-dossiers de ceux-ci. Une déduplication déjà effectuée n'est
+     * pas refaite, de sorte que l'opération peut être répétée après l'ajout d'un instantané.
+     *
+     * @param root      le dossier des instantanés
+     * @param hardLinks vrai pour utiliser des liens physiques lorsque c'est possible, faux pour
+     *                  n'utiliser que des fichiers de renvoi
+     * @return le bilan de la déduplication
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public static Report deduplicate(Path root, boolean hardLinks) throws IOException {
+        Path store = root.resolve(STORE_DIRECTORY);
+        Files.createDirectories(store);
+
+        int files = 0, linked = 0;
+        long bytes = 0;
+        for (Path file : candidates(root)) {
+            Path content = resolve(file);
+            long size = Files.size(content);
+            files += 1;
+            bytes += size;
+
+            Path object = store.resolve(hash(content));
+            if (Files.exists(object) && Files.isSameFile(object, content)) continue;
+
+            if (!Files.exists(object)) {
+                // Premier exemplaire : il devient le contenu du magasin, lié tel quel si possible
+                if (hardLinks && tryLink(object, content)) continue;
+                Files.copy(content, object);
+            } else if (Files.mismatch(object, content) != -1) {
+                throw new IOException("Collision d'empreintes : " + content + " et " + object);
+            }
+            replace(file, object, hardLinks);
+            linked += 1;
+        }
+
+        int unique = 0;
+        long uniqueBytes = 0;
+        try (Stream<Path> objects = Files.list(store)) {
+            for (Path object : objects.toList()) {
+                unique += 1;
+                uniqueBytes += Files.size(object);
+            }
+        }
+        return new Report(files, bytes, unique, uniqueBytes, linked);
+    }
+
+    /** Remplace le fichier donné par un lien physique ou un renvoi vers le contenu donné. */
+    private static void replace(Path file, Path object, boolean hardLinks) throws IOException {
+        Path dir = file.getParent();
+        Path ref = file.resolveSibling(file.getFileName() + REF_SUFFIX);
+        Path temp = dir.resolve(file.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        if (hardLinks && tryLink(temp, object)) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(ref);
+        } else {
+            String target = dir.toAbsolutePath().relativize(object.toAbsolutePath()).toString();
+            Files.writeString(temp, target, StandardCharsets.UTF_8);
+            Files.move(temp, ref, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static boolean tryLink(Path link, Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // Liens physiques non pris en charge, ou fichiers sur des volumes différents
+            return false;
+        }
+    }
+
+    /** Retourne les fichiers des instantanés (et de leurs jours) à dédupliquer, triés. */
+    private static List<Path> candidates(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root, 3)) {
+            paths.filter(p -> !p.startsWith(root.resolve(STORE_DIRECTORY)))
+                    .filter(p -> root.relativize(p).getNameCount() >= 2)
+                    .filter(p -> !Files.isDirectory(p))
+                    .map(p -> {
+                        String name = p.getFileName().toString();
+                        // Un renvoi représente le fichier dont il porte le nom
+                        return name.endsWith(REF_SUFFIX)
+                                ? p.resolveSibling(name.substring(0, name.length() - REF_SUFFIX.length()))
+                                : p;
+                    })
+                    .filter(p -> !EXCLUDED.contains(p.getFileName().toString()))
+                    .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                    .distinct()
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buffer)) > 0; ) digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
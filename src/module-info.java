@@ -2,6 +2,7 @@ module ReCHor {
     requires javafx.controls;
     requires java.desktop;
     requires java.net.http;
+    requires jdk.httpserver;
     requires java.xml.crypto;
 
     exports ch.epfl.rechor;
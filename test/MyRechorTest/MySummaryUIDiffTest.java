@@ -0,0 +1,52 @@
+package ch.epfl.rechor.gui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MySummaryUIDiffTest {
+
+    @Test
+    void replaceChangedOnlyTouchesChangedRange() {
+        ObservableList<String> items = FXCollections.observableArrayList("a", "b", "c", "d", "e");
+        List<String> touched = new ArrayList<>();
+        items.addListener((ListChangeListener<String>) c -> {
+            while (c.next()) {
+                touched.addAll(c.getRemoved());
+                touched.addAll(c.getAddedSubList());
+            }
+        });
+        SummaryUI.replaceChanged(items, List.of("a", "b", "x", "y", "d", "e"));
+        assertEquals(List.of("a", "b", "x", "y", "d", "e"), items);
+        assertEquals(List.of("c", "x", "y"), touched);
+
+        touched.clear();
+        SummaryUI.replaceChanged(items, List.copyOf(items));
+        assertEquals(List.of(), touched);
+    }
+
+    @Test
+    void replaceChangedMatchesNewListOnRandomInputs() {
+        Random rng = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            List<Integer> items = randomList(rng);
+            List<Integer> newItems = randomList(rng);
+            SummaryUI.replaceChanged(items, newItems);
+            assertEquals(newItems, items);
+        }
+    }
+
+    private static List<Integer> randomList(Random rng) {
+        List<Integer> list = new ArrayList<>();
+        int size = rng.nextInt(8);
+        for (int i = 0; i < size; i++) list.add(rng.nextInt(3));
+        return list;
+    }
+}
@@ -0,0 +1,105 @@
+package MyRechorTest.journey;
+
+import ch.epfl.rechor.journey.*;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MyDepartureProfileTest {
+    private static final Path TIMETABLE = Path.of("timetables/timetable-03-17");
+    private static final LocalDate DATE = LocalDate.of(2025, Month.MARCH, 18);
+
+    private static int stationId(Stations stations, String name) {
+        for (var i = 0; i < stations.size(); i += 1)
+            if (stations.name(i).equals(name)) return i;
+        throw new NoSuchElementException();
+    }
+
+    private static int changeMinutes(TimeTable timeTable, int stationId) {
+        return Math.max(0, timeTable.transfers().findMinutesBetween(stationId, stationId));
+    }
+
+    /**
+     * Retourne les critères (départ, arrivée, changements) des voyages donnés, tels que les
+     * profils les comparent : le temps de changement à la gare de départ (resp. d'arrivée) est
+     * compté lorsque le voyage y commence (resp. s'y termine) par une étape en transport.
+     */
+    private static Set<String> criteria(TimeTable timeTable, List<Journey> journeys, int dep, int arr) {
+        Set<String> criteria = new TreeSet<>();
+        for (Journey j : journeys) {
+            long transports = j.legs().stream().filter(l -> l instanceof Journey.Leg.Transport).count();
+            LocalDateTime depTime = j.depTime(), arrTime = j.arrTime();
+            if (j.legs().getFirst() instanceof Journey.Leg.Transport)
+                depTime = depTime.minusMinutes(changeMinutes(timeTable, dep));
+            if (j.legs().getLast() instanceof Journey.Leg.Transport)
+                arrTime = arrTime.plusMinutes(changeMinutes(timeTable, arr));
+            criteria.add(depTime + "/" + arrTime + "/" + (transports - 1));
+        }
+        return criteria;
+    }
+
+    @Test
+    void departureProfileMatchesArrivalProfiles() throws IOException {
+        assumeTrue(Files.exists(TIMETABLE.resolve(DATE.toString()).resolve("connections.bin")));
+        TimeTable timeTable = FileTimeTable.in(TIMETABLE);
+        Stations stations = timeTable.stations();
+        Router router = new Router(timeTable);
+
+        int dep = stationId(stations, "Ecublens VD, EPFL");
+        DepartureProfile departureProfile = router.departureProfile(DATE, dep);
+        for (String name : List.of("Renens VD", "Lausanne", "Morges", "Fribourg/Freiburg", "Bern")) {
+            int arr = stationId(stations, name);
+            List<Journey> forward = JourneyExtractor.journeysTo(departureProfile, arr);
+            List<Journey> backward = JourneyExtractor.journeys(router.profile(DATE, arr), dep);
+            assertFalse(backward.isEmpty(), name);
+            assertEquals(criteria(timeTable, backward, dep, arr),
+                    criteria(timeTable, forward, dep, arr), name);
+        }
+    }
+
+    @Test
+    void lateArrivalsAreNotWalkedPastLastRepresentableTime(@TempDir Path dir) throws IOException {
+        // Gares A, B et C ; une liaison de A (23h40 le lendemain) à B (23h55 le lendemain)
+        Files.writeString(dir.resolve("strings.txt"), "A\nB\nC\nIR 1\n");
+        ByteBuffer stations = ByteBuffer.allocate(3 * 10);
+        for (int s = 0; s < 3; s++) stations.putShort((short) s).putInt(0).putInt(0);
+        Files.write(dir.resolve("stations.bin"), stations.array());
+        Files.createFile(dir.resolve("station-aliases.bin"));
+        Files.createFile(dir.resolve("platforms.bin"));
+        Files.write(dir.resolve("routes.bin"), new byte[]{0, 3, 2});
+        // Changements : A → A et B → B en 2 minutes, B → C en 10 minutes
+        Files.write(dir.resolve("transfers.bin"), new byte[]{0, 0, 0, 0, 2, 0, 1, 0, 1, 2, 0, 1, 0, 2, 10});
+        Path day = Files.createDirectory(dir.resolve(DATE.toString()));
+        Files.write(day.resolve("connections.bin"), ByteBuffer.allocate(12)
+                .putShort((short) 0).putShort((short) 2860)
+                .putShort((short) 1).putShort((short) 2875)
+                .putInt(0).array());
+        Files.write(day.resolve("connections-succ.bin"), new byte[4]);
+        Files.write(day.resolve("trips.bin"), new byte[]{0, 0, 0, 2});
+
+        DepartureProfile profile = new Router(FileTimeTable.in(dir)).departureProfile(DATE, 0);
+        List<Journey> toB = JourneyExtractor.journeysTo(profile, 1);
+        assertEquals(1, toB.size());
+        assertEquals(DATE.atStartOfDay().plusMinutes(2875), toB.getFirst().arrTime());
+        // L'arrivée à pied en C, à 0h05 le surlendemain, n'est pas représentable
+        assertEquals(0, profile.forStation(2).size());
+        assertEquals(List.of(), JourneyExtractor.journeysTo(profile, 2));
+    }
+}
@@ -4,16 +4,22 @@ import ch.epfl.rechor.journey.*;
 import ch.epfl.rechor.timetable.TimeTable;
 import ch.epfl.rechor.timetable.mapped.FileTimeTable;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class MyJourneyExtractorTest {
+    private static final LocalDate SYNTHETIC_DATE = LocalDate.of(2025, Month.MARCH, 18);
+
     private Profile readProfile(
             TimeTable timeTable, LocalDate date, int arrStationId
     ) throws IOException {
@@ -45,4 +51,79 @@ public class MyJourneyExtractorTest {
         System.out.println(j);
     }
 
-}
\ No newline at end of file
+    /**
+     * Crée, dans le dossier donné, un horaire de trois gares A, B et C, avec deux trains de A à B
+     * (8h00 et 8h20) suivis de 5 minutes à pied jusqu'à C, et retourne le profil de C le 18 mars.
+     */
+    private static Profile syntheticProfile(Path dir) throws IOException {
+        Files.writeString(dir.resolve("strings.txt"), "A\nB\nC\nIR 1\n");
+        ByteBuffer stations = ByteBuffer.allocate(3 * 10);
+        for (int s = 0; s < 3; s++) stations.putShort((short) s).putInt(0).putInt(0);
+        Files.write(dir.resolve("stations.bin"), stations.array());
+        Files.createFile(dir.resolve("station-aliases.bin"));
+        Files.createFile(dir.resolve("platforms.bin"));
+        Files.write(dir.resolve("routes.bin"), new byte[]{0, 3, 2});
+        Files.write(dir.resolve("transfers.bin"), new byte[]{
+                0, 0, 0, 0, 2, 0, 1, 0, 1, 2, 0, 2, 0, 2, 2, 0, 1, 0, 2, 5});
+        Path day = Files.createDirectory(dir.resolve(SYNTHETIC_DATE.toString()));
+        Files.write(day.resolve("connections.bin"), ByteBuffer.allocate(24)
+                .putShort((short) 0).putShort((short) 500).putShort((short) 1).putShort((short) 510).putInt(1 << 8)
+                .putShort((short) 0).putShort((short) 480).putShort((short) 1).putShort((short) 490).putInt(0)
+                .array());
+        Files.write(day.resolve("connections-succ.bin"), ByteBuffer.allocate(8).putInt(0).putInt(1).array());
+        Files.write(day.resolve("trips.bin"), new byte[]{0, 0, 0, 2, 0, 0, 0, 2});
+        return new Router(FileTimeTable.in(dir)).profile(SYNTHETIC_DATE, 2);
+    }
+
+    @Test
+    public void summariesMatchExtractedJourneys(@TempDir Path dir) throws IOException {
+        Profile p = syntheticProfile(dir);
+        List<Journey> js = JourneyExtractor.journeys(p, 0);
+        List<JourneySummary> ss = JourneyExtractor.summaries(p, 0);
+        assertEquals(2, js.size());
+        assertEquals(js.size(), ss.size());
+        for (int i = 0; i < js.size(); i++) {
+            assertEquals(js.get(i), JourneyExtractor.journey(p, 0, ss.get(i)));
+            assertEquals(SYNTHETIC_DATE.atStartOfDay().plusMinutes(ss.get(i).depMins()), js.get(i).depTime());
+            assertEquals(SYNTHETIC_DATE.atStartOfDay().plusMinutes(ss.get(i).arrMins()), js.get(i).arrTime());
+            assertEquals(js.get(i).legs().size() - 2, ss.get(i).changes());
+            assertEquals("IR 1", ss.get(i).firstRoute());
+        }
+
+        for (int from = 470; from <= 520; from += 5) {
+            for (int to = from; to <= 520; to += 5) {
+                int f = from, t = to;
+                assertEquals(ss.stream().filter(s -> s.depMins() >= f && s.depMins() < t).toList(),
+                        JourneyExtractor.summaries(p, 0, from, to), from + "-" + to);
+            }
+        }
+        // Le changement de 2 minutes en A est compté dans le critère, pas dans le résumé
+        assertEquals(List.of(480), JourneyExtractor.summaries(p, 0, 479, 500).stream()
+                .map(JourneySummary::depMins).toList());
+        assertEquals(List.of(500), JourneyExtractor.summaries(p, 0, 500, 501).stream()
+                .map(JourneySummary::depMins).toList());
+        assertEquals(List.of(), JourneyExtractor.summaries(p, 0, 481, 500));
+    }
+
+    @Test
+    public void journeysShareStopAndTimeInstances(@TempDir Path dir) throws IOException {
+        Profile p = syntheticProfile(dir);
+        List<Journey> js = JourneyExtractor.journeys(p, 0);
+        assertEquals(2, js.size());
+        for (Journey j : js) {
+            assertEquals(2, j.legs().size());
+            assertSame(js.getFirst().depStop(), j.depStop());
+            assertSame(js.getFirst().arrStop(), j.arrStop());
+            assertSame(j.legs().get(0).arrStop(), j.legs().get(1).depStop());
+            assertSame(j.legs().get(0).arrTime(), j.legs().get(1).depTime());
+        }
+
+        JourneySummary summary = JourneyExtractor.summaries(p, 0).getLast();
+        Journey last = JourneyExtractor.journey(p, 0, summary);
+        assertEquals(js.getLast(), last);
+        assertSame(last.legs().get(0).arrTime(), last.legs().get(1).depTime());
+        // Les instances sont aussi partagées entre les extractions successives d'un même profil
+        assertSame(js.getLast().depStop(), last.depStop());
+        assertSame(js.getLast().arrTime(), last.arrTime());
+    }
+}
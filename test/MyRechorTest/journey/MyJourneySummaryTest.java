@@ -0,0 +1,34 @@
+package MyRechorTest.journey;
+
+import ch.epfl.rechor.journey.JourneySummary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyJourneySummaryTest {
+
+    @Test
+    void constructorThrowsOnNegativeChanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JourneySummary(0L, 480, 500, -1, "IR 15"));
+    }
+
+    @Test
+    void constructorThrowsWhenArrivalPrecedesDeparture() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JourneySummary(0L, 500, 480, 0, "IR 15"));
+    }
+
+    @Test
+    void constructorThrowsOnNullRoute() {
+        assertThrows(NullPointerException.class,
+                () -> new JourneySummary(0L, 480, 500, 0, null));
+    }
+
+    @Test
+    void constructorAcceptsValidSummary() {
+        JourneySummary s = new JourneySummary(42L, 480, 480, 0, "IR 15");
+        assertEquals(42L, s.criteria());
+        assertEquals("IR 15", s.firstRoute());
+    }
+}
@@ -0,0 +1,104 @@
+package MyRechorTest.journey;
+
+import ch.epfl.rechor.journey.DepartureProfile;
+import ch.epfl.rechor.journey.Profile;
+import ch.epfl.rechor.journey.ProfileCache;
+import ch.epfl.rechor.journey.Router;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyProfileCacheTest {
+    private static final LocalDate DATE = LocalDate.of(2025, Month.MARCH, 18);
+
+    @Test
+    void profileReusesInFlightComputation() {
+        List<Runnable> started = new ArrayList<>();
+        ProfileCache cache = new ProfileCache(new Router(null), started::add, 4);
+        Future<Profile> f1 = cache.profile(DATE, 12);
+        Future<Profile> f2 = cache.profile(DATE, 12);
+        assertSame(f1, f2);
+        assertEquals(1, started.size());
+        assertNull(cache.cachedProfile(DATE, 12));
+    }
+
+    @Test
+    void cancelAllExceptCancelsOnlySupersededComputations() {
+        List<Runnable> started = new ArrayList<>();
+        ProfileCache cache = new ProfileCache(new Router(null), started::add, 4);
+        Future<Profile> kept = cache.profile(DATE, 1);
+        Future<Profile> superseded = cache.profile(DATE, 2);
+        cache.cancelAllExcept(kept);
+        assertFalse(kept.isCancelled());
+        assertTrue(superseded.isCancelled());
+        assertNotSame(superseded, cache.profile(DATE, 2));
+        assertEquals(3, started.size());
+    }
+
+    @Test
+    void departureProfilesAreCachedSeparatelyFromArrivalProfiles() {
+        List<Runnable> started = new ArrayList<>();
+        ProfileCache cache = new ProfileCache(new Router(null), started::add, 4);
+        Future<Profile> arrival = cache.profile(DATE, 5);
+        Future<DepartureProfile> departure = cache.departureProfile(DATE, 5);
+        assertNotSame(arrival, departure);
+        assertSame(departure, cache.departureProfile(DATE, 5));
+        assertEquals(2, started.size());
+        assertTrue(cache.hasProfile(DATE, 5));
+        assertTrue(cache.hasDepartureProfile(DATE, 5));
+        assertFalse(cache.hasDepartureProfile(DATE, 6));
+        assertNull(cache.cachedDepartureProfile(DATE, 5));
+
+        cache.cancelAllExcept(departure);
+        assertTrue(arrival.isCancelled());
+        assertFalse(cache.hasProfile(DATE, 5));
+        assertTrue(cache.hasDepartureProfile(DATE, 5));
+    }
+
+    @Test
+    void cancelCancelsOnlyTheGivenComputation() {
+        List<Runnable> started = new ArrayList<>();
+        ProfileCache cache = new ProfileCache(new Router(null), started::add, 4);
+        Future<Profile> f1 = cache.profile(DATE, 1);
+        Future<Profile> f2 = cache.profile(DATE, 2);
+        cache.cancel(DATE, 2);
+        cache.cancel(DATE.plusDays(1), 1);
+        assertFalse(f1.isCancelled());
+        assertTrue(f2.isCancelled());
+    }
+
+    @Test
+    void capacityEvictsLeastRecentlyUsedProfile() {
+        List<Runnable> started = new ArrayList<>();
+        ProfileCache cache = new ProfileCache(new Router(null), started::add, 2);
+        Future<Profile> f1 = cache.profile(DATE, 1);
+        cache.profile(DATE, 2);
+        cache.profile(DATE, 1);
+        cache.profile(DATE, 3);
+        assertFalse(f1.isCancelled());
+        assertSame(f1, cache.profile(DATE, 1));
+    }
+
+    @Test
+    void evictionDoesNotCancelInFlightComputations() {
+        List<Runnable> started = new ArrayList<>();
+        ProfileCache cache = new ProfileCache(new Router(null), started::add, 1);
+        Future<Profile> evicted = cache.profile(DATE, 1);
+        cache.profile(DATE, 2);
+        assertFalse(evicted.isCancelled());
+        assertFalse(cache.hasProfile(DATE, 1));
+        assertNotSame(evicted, cache.profile(DATE, 1));
+    }
+
+    @Test
+    void constructorThrowsOnInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ProfileCache(new Router(null), Runnable::run, 0));
+    }
+}
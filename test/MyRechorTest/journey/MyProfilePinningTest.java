@@ -0,0 +1,73 @@
+package MyRechorTest.journey;
+
+import ch.epfl.rechor.journey.DepartureProfile;
+import ch.epfl.rechor.journey.Profile;
+import ch.epfl.rechor.journey.Router;
+import ch.epfl.rechor.timetable.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyProfilePinningTest {
+    private static final LocalDate DATE = LocalDate.of(2025, Month.MARCH, 18);
+
+    /** Horaire vide de 3 gares comptant les appels à ses méthodes. */
+    private static TimeTable countingTimeTable(Map<String, Integer> calls) {
+        return (TimeTable) Proxy.newProxyInstance(
+                TimeTable.class.getClassLoader(),
+                new Class<?>[]{TimeTable.class},
+                (proxy, method, args) -> {
+                    calls.merge(method.getName(), 1, Integer::sum);
+                    Class<?> type = method.getReturnType();
+                    if (type == int.class) return method.getName().equals("size") ? 3 : 0;
+                    if (type == boolean.class) return false;
+                    if (type.isInterface()) return empty(type);
+                    return null;
+                });
+    }
+
+    private static Object empty(Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.isDefault()) return InvocationHandler.invokeDefault(proxy, method, args);
+                    Class<?> t = method.getReturnType();
+                    if (t == int.class) return 0;
+                    if (t == long.class) return 0L;
+                    if (t == boolean.class) return false;
+                    return null;
+                });
+    }
+
+    @Test
+    void profileResolvesDayDataOnce() {
+        Map<String, Integer> calls = new HashMap<>();
+        Profile profile = new Router(countingTimeTable(calls)).profile(DATE, 1);
+        Connections connections = profile.connections();
+        Trips trips = profile.trips();
+        for (int i = 0; i < 10; i++) {
+            assertSame(connections, profile.connections());
+            assertSame(trips, profile.trips());
+        }
+        assertEquals(1, calls.get("connectionsFor"));
+        assertEquals(1, calls.get("tripsFor"));
+    }
+
+    @Test
+    void departureProfileResolvesDayDataOnce() {
+        Map<String, Integer> calls = new HashMap<>();
+        DepartureProfile profile = new Router(countingTimeTable(calls)).departureProfile(DATE, 1);
+        for (int i = 0; i < 10; i++) {
+            profile.connections();
+            profile.trips();
+        }
+        assertEquals(1, calls.get("connectionsFor"));
+        assertEquals(1, calls.get("tripsFor"));
+    }
+}
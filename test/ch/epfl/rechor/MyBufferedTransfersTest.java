@@ -0,0 +1,71 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.mapped.BufferedTransfers;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyBufferedTransfersTest {
+    // Un changement occupe 5 octets : gare de départ (U16), gare d'arrivée (U16), durée (U8)
+    private static final int RECORD_SIZE = 5;
+
+    // Toutes les paires de gares sont reliées, sauf celles dont la somme est multiple de 7 :
+    // les intervalles de changements sont assez longs pour être rangés dans la table de hachage.
+    private static ByteBuffer denseTransfers(int stations) {
+        ByteBuffer buffer = ByteBuffer.allocate(stations * stations * RECORD_SIZE);
+        for (int arr = 0; arr < stations; arr++) {
+            for (int dep = 0; dep < stations; dep++) {
+                if ((dep + arr) % 7 == 0 && dep != arr) continue;
+                buffer.putShort((short) dep).putShort((short) arr).put((byte) minutes(dep, arr));
+            }
+        }
+        return buffer.flip().slice();
+    }
+
+    private static int minutes(int dep, int arr) {
+        return (dep * 31 + arr * 17) % 256;
+    }
+
+    @Test
+    void minutesBetweenWorksOnDenseTransfers() {
+        int stations = 200;
+        BufferedTransfers t = new BufferedTransfers(denseTransfers(stations));
+        for (int arr = 0; arr < stations; arr++) {
+            for (int dep = 0; dep < stations; dep++) {
+                int d = dep, a = arr;
+                if ((dep + arr) % 7 == 0 && dep != arr)
+                    assertThrows(NoSuchElementException.class, () -> t.minutesBetween(d, a));
+                else
+                    assertEquals(minutes(dep, arr), t.minutesBetween(dep, arr));
+            }
+        }
+    }
+
+    @Test
+    void minutesBetweenThrowsOnUnknownStations() {
+        BufferedTransfers t = new BufferedTransfers(denseTransfers(20));
+        assertThrows(NoSuchElementException.class, () -> t.minutesBetween(20, 3));
+        assertThrows(NoSuchElementException.class, () -> t.minutesBetween(-1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> t.minutesBetween(3, 20));
+    }
+
+    @Test
+    void findMinutesBetweenReturnsMinusOneInsteadOfThrowing() {
+        int stations = 20;
+        BufferedTransfers t = new BufferedTransfers(denseTransfers(stations));
+        for (int arr = 0; arr < stations; arr++) {
+            for (int dep = 0; dep < stations; dep++) {
+                int expected = (dep + arr) % 7 == 0 && dep != arr ? -1 : minutes(dep, arr);
+                assertEquals(expected, t.findMinutesBetween(dep, arr));
+            }
+        }
+        assertEquals(-1, t.findMinutesBetween(20, 3));
+        assertEquals(-1, t.findMinutesBetween(-1, 3));
+        assertEquals(-1, t.findMinutesBetween(3, 20));
+        assertEquals(-1, t.findMinutesBetween(3, -1));
+    }
+}
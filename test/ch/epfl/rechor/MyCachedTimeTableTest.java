@@ -0,0 +1,44 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.CachedTimeTable;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.Trips;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyCachedTimeTableTest {
+    private static final LocalDate DATE = LocalDate.of(2025, Month.MARCH, 18);
+
+    /** Horaire retournant de nouvelles données du jour à chaque appel, et comptant ces appels. */
+    private static TimeTable countingTimeTable(Map<String, Integer> calls) {
+        return (TimeTable) Proxy.newProxyInstance(
+                TimeTable.class.getClassLoader(),
+                new Class<?>[]{TimeTable.class},
+                (proxy, method, args) -> {
+                    calls.merge(method.getName(), 1, Integer::sum);
+                    Class<?> type = method.getReturnType();
+                    return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                            (p, m, a) -> null);
+                });
+    }
+
+    @Test
+    void tripsAndConnectionsAreCachedForTheirOwnDate() {
+        Map<String, Integer> calls = new HashMap<>();
+        TimeTable timeTable = new CachedTimeTable(countingTimeTable(calls));
+        Trips trips = timeTable.tripsFor(DATE);
+        timeTable.connectionsFor(DATE.plusDays(1));
+        assertSame(trips, timeTable.tripsFor(DATE));
+        assertNotSame(trips, timeTable.tripsFor(DATE.plusDays(1)));
+        assertSame(timeTable.connectionsFor(DATE.plusDays(1)), timeTable.connectionsFor(DATE.plusDays(1)));
+        assertEquals(2, calls.get("tripsFor"));
+        assertEquals(1, calls.get("connectionsFor"));
+    }
+}
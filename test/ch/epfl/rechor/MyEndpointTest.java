@@ -0,0 +1,85 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.journey.Endpoint;
+import ch.epfl.rechor.journey.Stop;
+import ch.epfl.rechor.timetable.Stations;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyEndpointTest {
+    // Environ 400 m de longitude à cette latitude
+    private static final double STEP = 0.0052;
+
+    private static final Stations STATIONS = new Stations() {
+        @Override
+        public String name(int id) {
+            return "Gare " + id;
+        }
+
+        @Override
+        public double longitude(int id) {
+            return 6.6 + id * STEP;
+        }
+
+        @Override
+        public double latitude(int id) {
+            return 46.5;
+        }
+
+        @Override
+        public int size() {
+            return 5;
+        }
+    };
+
+    private static final Stop HERE = new Stop("Ici", null, 6.6, 46.5);
+
+    @Test
+    void endpointCopiesSeeds() {
+        List<Endpoint.Seed> seeds = new ArrayList<>(List.of(new Endpoint.Seed(1, 3)));
+        Endpoint endpoint = new Endpoint(HERE, seeds);
+        seeds.clear();
+        assertEquals(List.of(new Endpoint.Seed(1, 3)), endpoint.seeds());
+    }
+
+    @Test
+    void endpointThrowsOnInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Endpoint(HERE, List.of()));
+        assertThrows(NullPointerException.class, () -> new Endpoint(null, List.of(new Endpoint.Seed(0, 0))));
+        assertThrows(IllegalArgumentException.class, () -> new Endpoint.Seed(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Endpoint.Seed(0, -1));
+    }
+
+    @Test
+    void minutesReturnsShortestWalk() {
+        Endpoint endpoint = new Endpoint(HERE, List.of(
+                new Endpoint.Seed(2, 7), new Endpoint.Seed(4, 1), new Endpoint.Seed(2, 5)));
+        assertEquals(5, endpoint.minutes(2));
+        assertEquals(1, endpoint.minutes(4));
+        assertEquals(-1, endpoint.minutes(3));
+    }
+
+    @Test
+    void nearSeedsStationsWithinRadius() {
+        Endpoint endpoint = Endpoint.near(STATIONS, "Ici", 6.6 + STEP / 2, 46.5, 1200);
+        assertEquals("Ici", endpoint.stop().name());
+        assertEquals(6.6 + STEP / 2, endpoint.stop().longitude());
+        assertEquals(4, endpoint.seeds().size());
+        // Gares 0 et 1 à 200 m, gare 2 à 600 m, gare 3 à 1000 m, gare 4 hors de portée
+        assertEquals(3, endpoint.minutes(0));
+        assertEquals(3, endpoint.minutes(1));
+        assertEquals(8, endpoint.minutes(2));
+        assertEquals(13, endpoint.minutes(3));
+        assertEquals(-1, endpoint.minutes(4));
+    }
+
+    @Test
+    void nearThrowsWithoutReachableStation() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Endpoint.near(STATIONS, "Loin", 8, 47, 1000));
+    }
+}
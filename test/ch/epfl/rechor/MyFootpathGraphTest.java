@@ -0,0 +1,125 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.FootpathGraph;
+import ch.epfl.rechor.timetable.mapped.BufferedTransfers;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyFootpathGraphTest {
+    // Changements (départ, arrivée, durée), groupés par gare d'arrivée dans l'ordre 3, 0, 2
+    private static final int[][] TRANSFERS = {
+            {1, 3, 4}, {3, 3, 2}, {0, 3, 7},
+            {0, 0, 1}, {3, 0, 7},
+            {2, 2, 3}, {0, 2, 9}, {3, 2, 5},
+    };
+
+    private static FootpathGraph graph(int[][] transfers) {
+        return FootpathGraph.of(
+                transfers.length,
+                i -> transfers[i][0],
+                i -> transfers[i][1],
+                i -> transfers[i][2]);
+    }
+
+    private static List<Integer> arriving(FootpathGraph g, int st) {
+        List<Integer> deps = new ArrayList<>();
+        int r = g.arrivingAt(st);
+        for (int i = PackedRange.startInclusive(r); i < PackedRange.endExclusive(r); i++)
+            deps.add(g.depStationId(i) * 1000 + g.inMinutes(i));
+        return deps;
+    }
+
+    private static List<Integer> departing(FootpathGraph g, int st) {
+        List<Integer> arrs = new ArrayList<>();
+        int r = g.departingFrom(st);
+        for (int i = PackedRange.startInclusive(r); i < PackedRange.endExclusive(r); i++)
+            arrs.add(g.arrStationId(i) * 1000 + g.outMinutes(i));
+        return arrs;
+    }
+
+    @Test
+    void incomingIndicesMatchGroupedInput() {
+        FootpathGraph g = graph(TRANSFERS);
+        assertEquals(4, g.stationCount());
+        assertEquals(TRANSFERS.length, g.size());
+        assertEquals(PackedRange.pack(0, 3), g.arrivingAt(3));
+        assertEquals(PackedRange.pack(3, 5), g.arrivingAt(0));
+        assertEquals(PackedRange.pack(5, 8), g.arrivingAt(2));
+        assertEquals(0, PackedRange.length(g.arrivingAt(1)));
+        for (int i = 0; i < TRANSFERS.length; i++) {
+            assertEquals(TRANSFERS[i][0], g.depStationId(i));
+            assertEquals(TRANSFERS[i][2], g.inMinutes(i));
+        }
+    }
+
+    @Test
+    void outgoingAdjacencyKeepsInputOrder() {
+        FootpathGraph g = graph(TRANSFERS);
+        assertEquals(List.of(3007, 1, 2009), departing(g, 0));
+        assertEquals(List.of(3004), departing(g, 1));
+        assertEquals(List.of(2003), departing(g, 2));
+        assertEquals(List.of(3002, 7, 2005), departing(g, 3));
+        assertEquals(List.of(), departing(g, 10));
+    }
+
+    @Test
+    void ungroupedInputIsGroupedByStation() {
+        int[][] shuffled = {TRANSFERS[5], TRANSFERS[0], TRANSFERS[3], TRANSFERS[6], TRANSFERS[1],
+                TRANSFERS[4], TRANSFERS[7], TRANSFERS[2]};
+        FootpathGraph g = graph(shuffled);
+        assertEquals(List.of(1004, 3002, 7), arriving(g, 3));
+        assertEquals(List.of(1, 3007), arriving(g, 0));
+        assertEquals(List.of(2003, 9, 3005), arriving(g, 2));
+        assertEquals(List.of(), arriving(g, 7));
+        assertEquals(List.of(3002, 7, 2005), departing(g, 3));
+    }
+
+    @Test
+    void graphOfTransfersMatchesBufferedGraph() {
+        ByteBuffer buffer = ByteBuffer.allocate(TRANSFERS.length * 5);
+        for (int[] t : TRANSFERS)
+            buffer.putShort((short) t[0]).putShort((short) t[1]).put((byte) t[2]);
+        BufferedTransfers transfers = new BufferedTransfers(buffer.flip().slice());
+
+        FootpathGraph direct = FootpathGraph.of(transfers, 4);
+        FootpathGraph buffered = transfers.footpaths(4);
+        assertSame(buffered, transfers.footpaths(4));
+        for (int st = 0; st < 4; st++) {
+            assertEquals(departing(buffered, st).stream().sorted().toList(),
+                    departing(direct, st).stream().sorted().toList());
+            assertEquals(arriving(buffered, st).stream().sorted().toList(),
+                    arriving(direct, st).stream().sorted().toList());
+        }
+    }
+
+    @Test
+    void bufferedGraphIsRestrictedToGivenStationCount() {
+        ByteBuffer buffer = ByteBuffer.allocate(TRANSFERS.length * 5);
+        for (int[] t : TRANSFERS)
+            buffer.putShort((short) t[0]).putShort((short) t[1]).put((byte) t[2]);
+        BufferedTransfers transfers = new BufferedTransfers(buffer.flip().slice());
+
+        assertSame(transfers.footpaths(4), transfers.footpaths(100));
+        FootpathGraph restricted = transfers.footpaths(2);
+        FootpathGraph direct = FootpathGraph.of(transfers, 2);
+        assertEquals(direct.size(), restricted.size());
+        for (int st = 0; st < 4; st++) {
+            assertEquals(arriving(direct, st), arriving(restricted, st));
+            if (st >= 2) assertEquals(List.of(), arriving(restricted, st));
+        }
+        assertThrows(IllegalArgumentException.class, () -> transfers.footpaths(-1));
+    }
+
+    @Test
+    void tooManyNeighboursThrows() {
+        assertThrows(IllegalArgumentException.class, () -> FootpathGraph.of(
+                300, i -> i, i -> 299, i -> 1));
+    }
+}
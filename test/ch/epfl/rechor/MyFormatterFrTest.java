@@ -0,0 +1,49 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.Stop;
+import ch.epfl.rechor.journey.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyFormatterFrTest {
+
+    @Test
+    void formatTimeMatchesFormatterForEveryMinute() {
+        DateTimeFormatter reference = DateTimeFormatter.ofPattern("H'h'mm");
+        LocalDateTime midnight = LocalDate.of(2025, 3, 18).atStartOfDay();
+        for (int m = 0; m < 24 * 60; m++) {
+            LocalDateTime t = midnight.plusMinutes(m).plusSeconds(m % 60);
+            assertEquals(reference.format(t), FormatterFr.formatTime(t));
+        }
+    }
+
+    @Test
+    void formatDurationWorksInsideAndOutsideTable() {
+        assertEquals("0 min", FormatterFr.formatDuration(Duration.ZERO));
+        assertEquals("59 min", FormatterFr.formatDuration(Duration.ofMinutes(59)));
+        assertEquals("1 h 0 min", FormatterFr.formatDuration(Duration.ofMinutes(60)));
+        assertEquals("47 h 59 min", FormatterFr.formatDuration(Duration.ofMinutes(2879)));
+        assertEquals("48 h 0 min", FormatterFr.formatDuration(Duration.ofMinutes(2880)));
+        assertEquals("-5 min", FormatterFr.formatDuration(Duration.ofMinutes(-5)));
+        assertSame(FormatterFr.formatDuration(Duration.ofMinutes(75)),
+                FormatterFr.formatDuration(Duration.ofSeconds(75 * 60 + 30)));
+    }
+
+    @Test
+    void formatRouteDestinationIsMemoized() {
+        LocalDateTime t = LocalDateTime.of(2025, 3, 18, 8, 0);
+        Stop a = new Stop("A", null, 6.5, 46.5), b = new Stop("B", null, 6.6, 46.5);
+        Journey.Leg.Transport l1 = new Journey.Leg.Transport(a, t, b, t.plusMinutes(5), List.of(), Vehicle.BUS, "701", "Renens");
+        Journey.Leg.Transport l2 = new Journey.Leg.Transport(b, t, a, t.plusMinutes(5), List.of(), Vehicle.BUS, "701", "Renens");
+        assertEquals("701 Direction Renens", FormatterFr.formatRouteDestination(l1));
+        assertSame(FormatterFr.formatRouteDestination(l1), FormatterFr.formatRouteDestination(l2));
+    }
+}
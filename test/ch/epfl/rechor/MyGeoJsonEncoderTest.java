@@ -0,0 +1,73 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.journey.GeoJsonEncoder;
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneyGeoJsonConverter;
+import ch.epfl.rechor.journey.Stop;
+import ch.epfl.rechor.journey.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyGeoJsonEncoderTest {
+    private static final LocalDateTime T = LocalDateTime.of(2025, 3, 18, 8, 0);
+
+    private static Journey journey(Stop... stops) {
+        List<Journey.Leg.IntermediateStop> intermediate = List.of(
+                new Journey.Leg.IntermediateStop(stops[1], T.plusMinutes(2), T.plusMinutes(3)));
+        return new Journey(List.of(
+                new Journey.Leg.Transport(stops[0], T, stops[2], T.plusMinutes(5), intermediate, Vehicle.BUS, "1", "X"),
+                new Journey.Leg.Foot(stops[2], T.plusMinutes(5), stops[3], T.plusMinutes(8))));
+    }
+
+    private static final Journey JOURNEY = journey(
+            new Stop("A", null, 6.5668108, 46.5225528),
+            new Stop("B", null, 6.57, -46.2),
+            new Stop("C", null, 0.0004, 89.000001),
+            new Stop("D", null, 0.0004, 89.0000012));
+
+    @Test
+    void lineStringIsWrittenWithFixedPointCoordinates() {
+        assertEquals("{\"type\":\"LineString\",\"coordinates\":"
+                        + "[[6.56681,46.52255],[6.57,-46.2],[4.0E-4,89.0]]}",
+                JourneyGeoJsonConverter.toGeoJson(JOURNEY));
+    }
+
+    @Test
+    void featureCollectionContainsEveryJourney() {
+        String line = JourneyGeoJsonConverter.toGeoJson(JOURNEY);
+        String feature = "{\"type\":\"Feature\",\"properties\":{},\"geometry\":" + line + "}";
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[" + feature + "," + feature + "]}",
+                JourneyGeoJsonConverter.toGeoJson(List.of(JOURNEY, JOURNEY)));
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[]}",
+                JourneyGeoJsonConverter.toGeoJson(List.of()));
+    }
+
+    @Test
+    void encoderStreamsDocumentsLargerThanItsBuffer() throws IOException {
+        List<Journey> journeys = Collections.nCopies(100, JOURNEY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeoJsonEncoder encoder = new GeoJsonEncoder(out);
+        encoder.featureCollection(journeys).lineString(JOURNEY);
+        String expected = JourneyGeoJsonConverter.toGeoJson(journeys) + JourneyGeoJsonConverter.toGeoJson(JOURNEY);
+        assertTrue(expected.length() > 4 * 1024);
+        assertEquals(expected, out.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void converterWritesBytesToStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JourneyGeoJsonConverter.toGeoJson(JOURNEY, out);
+        JourneyGeoJsonConverter.toGeoJson(List.of(JOURNEY));
+        JourneyGeoJsonConverter.toGeoJson(JOURNEY, out);
+        String line = JourneyGeoJsonConverter.toGeoJson(JOURNEY);
+        assertEquals(line + line, out.toString(StandardCharsets.US_ASCII));
+    }
+}
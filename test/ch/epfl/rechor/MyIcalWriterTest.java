@@ -0,0 +1,79 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.journey.Journey;
+import ch.epfl.rechor.journey.JourneyIcalConverter;
+import ch.epfl.rechor.journey.Stop;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyIcalWriterTest {
+
+    private static String written(String value) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        new IcalWriter(sb).add(IcalBuilder.Name.DESCRIPTION, value);
+        return sb.toString();
+    }
+
+    @Test
+    void asciiLinesAreFoldedEvery75Octets() throws IOException {
+        String value = "x".repeat(200);
+        String expected = "DESCRIPTION:" + "x".repeat(63) + "\r\n "
+                + "x".repeat(74) + "\r\n " + "x".repeat(63) + "\r\n";
+        assertEquals(expected, written(value));
+    }
+
+    @Test
+    void foldingCountsUtf8OctetsWithoutSplittingCharacters() throws IOException {
+        String value = "é→🚆".repeat(40);
+        String ical = written(value);
+        for (String line : ical.split("\r\n"))
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75);
+        assertFalse(ical.contains("�"));
+        assertEquals("DESCRIPTION:" + value + "\r\n", ical.replace("\r\n ", "").replace("\r\n", "") + "\r\n");
+        // Une ligne pliée trop tôt aurait laissé de la place pour le caractère suivant
+        String first = ical.substring(0, ical.indexOf("\r\n"));
+        assertTrue(first.getBytes(StandardCharsets.UTF_8).length > 75 - 4);
+    }
+
+    @Test
+    void endThrowsWithoutOpenComponent() {
+        assertThrows(IllegalArgumentException.class, () -> new IcalWriter(new StringBuilder()).end());
+    }
+
+    @Test
+    void batchWritesOneEventPerJourney() throws IOException {
+        LocalDateTime t = LocalDateTime.of(2025, 3, 18, 7, 30);
+        Stop a = new Stop("Morges", null, 6.49, 46.51);
+        Stop b = new Stop("Lausanne", null, 6.63, 46.52);
+        List<Journey> week = new ArrayList<>();
+        for (int d = 0; d < 5; d++)
+            week.add(new Journey(List.of(new Journey.Leg.Foot(a, t.plusDays(d), b, t.plusDays(d).plusMinutes(40)))));
+
+        StringWriter out = new StringWriter();
+        JourneyIcalConverter.toIcalendar(week, out);
+        String ical = out.toString();
+
+        assertEquals(1, count(ical, "BEGIN:VCALENDAR"));
+        assertEquals(5, count(ical, "BEGIN:VEVENT"));
+        assertEquals(5, count(ical, "END:VEVENT"));
+        assertTrue(ical.contains("DTSTART:20250321T073000\r\n"));
+        assertTrue(ical.endsWith("END:VEVENT\r\nEND:VCALENDAR\r\n"));
+    }
+
+    private static int count(String s, String pattern) {
+        Matcher m = Pattern.compile(Pattern.quote(pattern)).matcher(s);
+        int n = 0;
+        while (m.find()) n += 1;
+        return n;
+    }
+}
@@ -0,0 +1,64 @@
+package ch.epfl.rechor;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyJsonWriterTest {
+
+    @Test
+    void stringsAreEscaped() {
+        assertEquals("\"a\\\"b\\\\c\\n\\t\\u0001\"", new Json.JString("a\"b\\c\n\t\u0001").toString());
+        assertEquals("\"Genève\"", new Json.JString("Genève").toString());
+    }
+
+    @Test
+    void numbersMatchDoubleToString() {
+        Random rng = new Random(2025);
+        double[] special = {0, -0.0, 1, -1, 9_999_999, 1e7, -1e7, 1e-5, 6.56614, 123.456, Double.MAX_VALUE};
+        for (double v : special) assertEquals(Double.toString(v), new Json.JNumber(v).toString());
+        for (int i = 0; i < 10_000; i++) {
+            double v = switch (i % 3) {
+                case 0 -> Math.round(rng.nextGaussian() * 1e9) / 1e5;
+                case 1 -> (double) (rng.nextInt() >> rng.nextInt(32));
+                default -> Double.longBitsToDouble(rng.nextLong());
+            };
+            if (Double.isFinite(v)) assertEquals(Double.toString(v), new Json.JNumber(v).toString());
+        }
+    }
+
+    @Test
+    void treeIsWrittenInOrder() {
+        Map<String, Json> members = new LinkedHashMap<>();
+        members.put("b", new Json.JArray(List.of(new Json.JNumber(1), new Json.JArray(List.of()))));
+        members.put("a", new Json.JObject(Map.of()));
+        assertEquals("{\"b\":[1.0,[]],\"a\":{}}", new Json.JObject(members).toString());
+    }
+
+    @Test
+    void streamingWritesSeparators() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        new JsonWriter(sb).beginArray()
+                .value(1L)
+                .beginObject().name("x").value("y").name("z").beginArray().value(2.5).endArray().endObject()
+                .value(new Json.JString("w"))
+                .endArray();
+        assertEquals("[1,{\"x\":\"y\",\"z\":[2.5]},\"w\"]", sb.toString());
+    }
+
+    @Test
+    void writerThrowsOnMisplacedElements() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonWriter(new StringBuilder()).beginObject().value(1L));
+        assertThrows(IllegalArgumentException.class, () -> new JsonWriter(new StringBuilder()).beginArray().name("a"));
+        assertThrows(IllegalArgumentException.class, () -> new JsonWriter(new StringBuilder()).beginArray().endObject());
+        assertThrows(IllegalArgumentException.class,
+                () -> new JsonWriter(new StringBuilder()).beginObject().name("a").endObject());
+        assertThrows(IllegalArgumentException.class, () -> new JsonWriter(new StringBuilder()).value(Double.NaN));
+    }
+}
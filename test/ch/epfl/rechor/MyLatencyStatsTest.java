@@ -0,0 +1,36 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.server.LatencyStats;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyLatencyStatsTest {
+
+    @Test
+    void percentilesUseNearestRank() {
+        LatencyStats stats = new LatencyStats(100);
+        for (int i = 100; i >= 1; i--) stats.record(i);
+        assertEquals(100, stats.count());
+        assertArrayEquals(new long[]{1, 50, 90, 99, 100}, stats.percentiles(0, 0.5, 0.9, 0.99, 1));
+    }
+
+    @Test
+    void percentilesKeepOnlyLatestSamples() {
+        LatencyStats stats = new LatencyStats(4);
+        for (int i = 1; i <= 10; i++) stats.record(i * 10L);
+        assertEquals(10, stats.count());
+        assertArrayEquals(new long[]{70, 100}, stats.percentiles(0, 1));
+    }
+
+    @Test
+    void percentilesAreZeroWithoutSamples() {
+        assertArrayEquals(new long[]{0, 0}, new LatencyStats(8).percentiles(0.5, 0.99));
+    }
+
+    @Test
+    void latencyStatsThrowOnInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyStats(0));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyStats(1).percentiles(1.5));
+    }
+}
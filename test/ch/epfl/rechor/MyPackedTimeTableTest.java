@@ -0,0 +1,94 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import ch.epfl.rechor.timetable.mapped.PackedTimeTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyPackedTimeTableTest {
+    private static final LocalDate MONDAY = LocalDate.of(2025, Month.MAY, 12);
+    @TempDir
+    Path root;
+
+    /** Crée un horaire d'une gare et d'une voie, dont seuls les jours donnés ont des liaisons. */
+    private Path timeTable(int days, int daysWithConnections) throws IOException {
+        Path dir = Files.createDirectory(root.resolve("timetable-05-12"));
+        Files.writeString(dir.resolve("strings.txt"), "Lausanne\n1\nIR 15\n");
+        // Gare : nom (U16), longitude (S32), latitude (S32)
+        Files.write(dir.resolve("stations.bin"), new byte[]{0, 0, 0, 0, 0, 1, 0, 0, 0, 2});
+        Files.createFile(dir.resolve("station-aliases.bin"));
+        // Voie : nom (U16), gare (U16)
+        Files.write(dir.resolve("platforms.bin"), new byte[]{0, 1, 0, 0});
+        // Ligne : nom (U16), véhicule (U8)
+        Files.write(dir.resolve("routes.bin"), new byte[]{0, 2, 2});
+        Files.createFile(dir.resolve("transfers.bin"));
+        Files.createDirectory(dir.resolve("pas-un-jour"));
+        for (int d = 0; d < days; d++) {
+            Path day = Files.createDirectory(dir.resolve(MONDAY.plusDays(d).toString()));
+            Files.write(day.resolve("trips.bin"), new byte[]{0, 0, 0, 0, 0, 0, 0, (byte) (d % 3)});
+            if (d >= daysWithConnections) continue;
+            Files.write(day.resolve("connections.bin"), new byte[]{0, 0, 0, 60, 0, 1, 0, 70, 0, 0, 0, (byte) d});
+            Files.write(day.resolve("connections-succ.bin"), new byte[]{0, 0, 0, 0});
+        }
+        return dir;
+    }
+
+    @Test
+    void packedTimeTableMatchesDirectory() throws IOException {
+        Path dir = timeTable(7, 3);
+        Path file = root.resolve("timetable-05-12" + PackedTimeTable.EXTENSION);
+        assertEquals(6 + 7 + 2 * 3, PackedTimeTable.write(dir, file));
+
+        PackedTimeTable packed = PackedTimeTable.in(file);
+        FileTimeTable files = FileTimeTable.in(dir);
+        assertEquals(files.stringTable(), packed.stringTable());
+        assertEquals(7, packed.days().size());
+        assertEquals(MONDAY, packed.days().first());
+
+        assertEquals("Lausanne", packed.stations().name(0));
+        assertEquals(1, packed.platforms().size());
+        assertEquals("1", packed.platformName(1));
+        assertEquals(0, packed.stationId(1));
+        assertEquals("IR 15", packed.routes().name(0));
+        assertEquals(0, packed.transfers().size());
+
+        for (int d = 0; d < 7; d++) {
+            LocalDate date = MONDAY.plusDays(d);
+            assertEquals(files.tripsFor(date).size(), packed.tripsFor(date).size());
+            assertEquals(files.tripsFor(date).destination(1), packed.tripsFor(date).destination(1));
+        }
+        assertEquals(1, packed.connectionsFor(MONDAY.plusDays(2)).size());
+        assertEquals(70, packed.connectionsFor(MONDAY.plusDays(2)).arrMins(0));
+        assertThrows(UncheckedIOException.class, () -> packed.connectionsFor(MONDAY.plusDays(5)));
+        assertThrows(UncheckedIOException.class, () -> packed.tripsFor(MONDAY.minusDays(1)));
+    }
+
+    @Test
+    void sectionsAreAligned() throws IOException {
+        Path file = root.resolve("horaire" + PackedTimeTable.EXTENSION);
+        PackedTimeTable.write(timeTable(2, 2), file);
+        assertEquals(0, Files.size(file) % 8);
+    }
+
+    @Test
+    void invalidFilesAreRejected() throws IOException {
+        Path file = Files.write(root.resolve("faux" + PackedTimeTable.EXTENSION), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> PackedTimeTable.in(file));
+        Path truncated = root.resolve("tronque" + PackedTimeTable.EXTENSION);
+        PackedTimeTable.write(timeTable(1, 1), truncated);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, 40));
+        assertThrows(IOException.class, () -> PackedTimeTable.in(truncated));
+    }
+}
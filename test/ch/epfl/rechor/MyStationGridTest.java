@@ -0,0 +1,131 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.StationGrid;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.mapped.BufferedStations;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyStationGridTest {
+    private static final double EPSILON = 1e-6;
+
+    // Gares aléatoires en Suisse, plus quelques gares éloignées
+    private static Stations randomStations(int count) {
+        Random rng = new Random(2025);
+        double[] lons = new double[count];
+        double[] lats = new double[count];
+        for (int i = 0; i < count; i++) {
+            boolean far = i % 100 == 0;
+            lons[i] = far ? -5 + 25 * rng.nextDouble() : 5.9 + 4.6 * rng.nextDouble();
+            lats[i] = far ? 40 + 15 * rng.nextDouble() : 45.8 + 2 * rng.nextDouble();
+        }
+        return new Stations() {
+            @Override
+            public String name(int id) {
+                return "Gare " + id;
+            }
+
+            @Override
+            public double longitude(int id) {
+                return lons[id];
+            }
+
+            @Override
+            public double latitude(int id) {
+                return lats[id];
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private static double distance(Stations s, int id, double lon, double lat) {
+        return StationGrid.distance(s.longitude(id), s.latitude(id), lon, lat);
+    }
+
+    private static double[] sortedDistances(Stations s, double lon, double lat) {
+        return IntStream.range(0, s.size()).mapToDouble(i -> distance(s, i, lon, lat)).sorted().toArray();
+    }
+
+    private static void assertIncreasing(Stations s, int[] ids, double lon, double lat) {
+        for (int i = 1; i < ids.length; i++)
+            assertTrue(distance(s, ids[i - 1], lon, lat) <= distance(s, ids[i], lon, lat) + EPSILON);
+    }
+
+    @Test
+    void withinMatchesExhaustiveSearch() {
+        Stations s = randomStations(3000);
+        StationGrid grid = StationGrid.of(s);
+        Random rng = new Random(1);
+        for (int q = 0; q < 200; q++) {
+            double lon = 5.9 + 4.6 * rng.nextDouble(), lat = 45.8 + 2 * rng.nextDouble();
+            double radius = 5000 * rng.nextDouble();
+            int[] ids = grid.within(lon, lat, radius);
+            assertIncreasing(s, ids, lon, lat);
+            long expected = IntStream.range(0, s.size()).filter(i -> distance(s, i, lon, lat) <= radius).count();
+            assertEquals(expected, ids.length);
+            for (int id : ids) assertTrue(distance(s, id, lon, lat) <= radius + EPSILON);
+        }
+    }
+
+    @Test
+    void nearestMatchesExhaustiveSearch() {
+        Stations s = randomStations(3000);
+        StationGrid grid = StationGrid.of(s);
+        Random rng = new Random(2);
+        for (int q = 0; q < 200; q++) {
+            double lon = -5 + 25 * rng.nextDouble(), lat = 40 + 15 * rng.nextDouble();
+            int k = 1 + rng.nextInt(40);
+            int[] ids = grid.nearest(lon, lat, k);
+            double[] expected = sortedDistances(s, lon, lat);
+            assertEquals(k, ids.length);
+            assertEquals(k, Arrays.stream(ids).distinct().count());
+            for (int i = 0; i < k; i++)
+                assertEquals(expected[i], distance(s, ids[i], lon, lat), EPSILON);
+        }
+    }
+
+    @Test
+    void nearestReturnsAllStationsWhenFewer() {
+        Stations s = randomStations(30);
+        StationGrid grid = StationGrid.of(s);
+        int[] ids = grid.nearest(7, 46.5, 100);
+        assertEquals(30, ids.length);
+        assertIncreasing(s, ids, 7, 46.5);
+        assertEquals(0, grid.nearest(7, 46.5, 0).length);
+    }
+
+    @Test
+    void queriesThrowOnNegativeArguments() {
+        StationGrid grid = StationGrid.of(randomStations(10));
+        assertThrows(IllegalArgumentException.class, () -> grid.within(7, 46.5, -1));
+        assertThrows(IllegalArgumentException.class, () -> grid.nearest(7, 46.5, -1));
+    }
+
+    @Test
+    void distanceWorksOnKnownValue() {
+        // Lausanne - Genève, environ 51 km à vol d'oiseau
+        assertEquals(51_000, StationGrid.distance(6.6291, 46.5167, 6.1423, 46.2102), 500);
+        assertEquals(0, StationGrid.distance(6.6, 46.5, 6.6, 46.5));
+    }
+
+    @Test
+    void bufferedStationsBuildGridOnce() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * 10);
+        buffer.putShort((short) 0).putInt((int) Math.scalb(6.6 / 360, 32)).putInt((int) Math.scalb(46.5 / 360, 32));
+        buffer.putShort((short) 1).putInt((int) Math.scalb(6.7 / 360, 32)).putInt((int) Math.scalb(46.5 / 360, 32));
+        BufferedStations stations = new BufferedStations(List.of("A", "B"), buffer.flip().slice());
+        assertSame(stations.grid(), stations.grid());
+        assertArrayEquals(new int[]{1, 0}, stations.grid().nearest(6.69, 46.5, 2));
+    }
+}
@@ -0,0 +1,60 @@
+package ch.epfl.rechor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyStopIndexSnapshotTest {
+    private static final List<String> NAMES = List.of(
+            "Lausanne", "Renens VD", "Ecublens VD, EPFL", "Genève", "Genève-Aéroport",
+            "Zürich HB", "St. Gallen", "Bern", "Çà et là", "Mézières FR, village");
+    private static final Map<String, String> ALTERNATES = Map.of(
+            "Losanna", "Lausanne", "Ginevra", "Genève", "Berne", "Bern", "Zurich", "Zürich HB");
+    private static final List<String> QUERIES = List.of(
+            "", "la", "lau", "LAU", "gen", "GENÈ", "zur", "zür", "ecub epfl", "e", "st g",
+            "ç", "C", "mez vil", "aé", "ber", "xyz", "  renens   vd  ");
+
+    @Test
+    void snapshotRoundTripGivesSameResults(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve(StopIndexSnapshot.FILE_NAME);
+        StopIndex index = new StopIndex(NAMES, ALTERNATES);
+        StopIndexSnapshot.write(index, file, 42);
+        StopIndex mapped = StopIndexSnapshot.read(file, 42);
+        assertNotNull(mapped);
+        for (String q : QUERIES)
+            for (int max : new int[]{1, 3, 20})
+                assertEquals(index.stopsMatching(q, max), mapped.stopsMatching(q, max), q);
+    }
+
+    @Test
+    void staleSnapshotIsIgnored(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve(StopIndexSnapshot.FILE_NAME);
+        Path strings = dir.resolve("strings.txt");
+        Files.writeString(strings, "Lausanne\n");
+        long hash = StopIndexSnapshot.sourceHash(dir);
+        StopIndexSnapshot.write(new StopIndex(NAMES, ALTERNATES), file, hash);
+        assertNotNull(StopIndexSnapshot.read(file, hash));
+
+        Files.writeString(strings, "Lausanne\nRenens VD\n");
+        assertNotEquals(hash, StopIndexSnapshot.sourceHash(dir));
+        assertNull(StopIndexSnapshot.read(file, StopIndexSnapshot.sourceHash(dir)));
+        assertNull(StopIndexSnapshot.read(dir.resolve("absent.bin"), hash));
+    }
+
+    @Test
+    void resultsAreRankedAndAliasesResolved() {
+        StopIndex index = new StopIndex(NAMES, ALTERNATES);
+        assertEquals(List.of("Lausanne"), index.stopsMatching("losan", 5));
+        assertEquals(List.of("Genève", "Genève-Aéroport"), index.stopsMatching("gene", 5));
+        assertEquals(List.of("Zürich HB"), index.stopsMatching("zur", 5));
+        assertEquals(List.of(), index.stopsMatching("xyz", 5));
+        assertEquals(3, index.stopsMatching("", 3).size());
+    }
+}
@@ -0,0 +1,43 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.Platforms;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.StopStations;
+import ch.epfl.rechor.timetable.TimeTable;
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyStopStationsTest {
+
+    @Test
+    void tableMatchesPlatforms() throws IOException {
+        TimeTable tt = FileTimeTable.in(Path.of("timetables/timetable-05-12"));
+        Stations stations = tt.stations();
+        Platforms platforms = tt.platforms();
+        StopStations stops = StopStations.of(stations, platforms);
+        int n = stations.size();
+
+        assertEquals(n + platforms.size(), stops.size());
+        for (int i = 0; i < n; i++) {
+            assertTrue(stops.isStationId(i));
+            assertFalse(stops.isPlatformId(i));
+            assertEquals(i, stops.stationId(i));
+            assertNull(stops.platformName(i));
+        }
+        for (int i = 0; i < platforms.size(); i++) {
+            assertFalse(stops.isStationId(n + i));
+            assertTrue(stops.isPlatformId(n + i));
+            assertEquals(platforms.stationId(i), stops.stationId(n + i));
+            assertEquals(platforms.name(i), stops.platformName(n + i));
+            assertEquals(platforms.stationId(i), tt.stationId(n + i));
+        }
+        assertFalse(stops.isPlatformId(stops.size()));
+        assertNull(stops.platformName(stops.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> stops.stationId(stops.size()));
+    }
+}
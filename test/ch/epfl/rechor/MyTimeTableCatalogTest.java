@@ -0,0 +1,108 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import ch.epfl.rechor.timetable.mapped.TimeTableCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyTimeTableCatalogTest {
+    private static final LocalDate MONDAY = LocalDate.of(2025, Month.MAY, 12);
+    @TempDir
+    Path root;
+
+    /** Crée un instantané vide, contenant les jours donnés à partir du lundi. */
+    private Path snapshot(String name, int firstDay, int lastDay) throws IOException {
+        Path dir = Files.createDirectory(root.resolve(name));
+        Files.writeString(dir.resolve("strings.txt"), "\n");
+        for (String f : List.of("stations.bin", "station-aliases.bin", "platforms.bin", "routes.bin", "transfers.bin"))
+            Files.createFile(dir.resolve(f));
+        for (int d = firstDay; d <= lastDay; d++) Files.createDirectory(dir.resolve(MONDAY.plusDays(d).toString()));
+        return dir;
+    }
+
+    @Test
+    void datesAreServedByNewestSnapshotContainingThem() throws IOException {
+        Path older = snapshot("timetable-05-12", 0, 6);
+        Path newer = snapshot("timetable-05-15", 3, 9);
+        Files.createDirectory(root.resolve("pas-un-horaire"));
+        TimeTableCatalog catalog = TimeTableCatalog.in(root);
+
+        assertEquals(List.of(older, newer), catalog.directories());
+        assertEquals(Optional.of(older), catalog.directoryFor(MONDAY.plusDays(2)));
+        assertEquals(Optional.of(newer), catalog.directoryFor(MONDAY.plusDays(3)));
+        assertEquals(Optional.empty(), catalog.directoryFor(MONDAY.minusDays(1)));
+        assertThrows(NoSuchElementException.class, () -> catalog.lease(MONDAY.plusDays(10)));
+
+        try (TimeTableCatalog.Lease lease = catalog.lease(MONDAY.plusDays(6))) {
+            assertEquals(newer, lease.directory());
+            assertEquals(newer, lease.timeTable().directory());
+        }
+        try (TimeTableCatalog.Lease lease = catalog.latest()) {
+            assertEquals(newer, lease.directory());
+        }
+    }
+
+    @Test
+    void snapshotsAreOpenedOnceAndSharedBetweenLeases() throws IOException {
+        snapshot("timetable-05-12", 0, 6);
+        TimeTableCatalog catalog = TimeTableCatalog.in(root);
+        try (TimeTableCatalog.Lease a = catalog.lease(MONDAY);
+             TimeTableCatalog.Lease b = catalog.lease(MONDAY.plusDays(5))) {
+            assertSame(a.timeTable(), b.timeTable());
+        }
+        assertFalse(catalog.reload());
+    }
+
+    @Test
+    void reloadSwapsInNewWeekWhileLeasesFinishOnOldOne() throws IOException {
+        snapshot("timetable-a", 0, 6);
+        TimeTableCatalog catalog = TimeTableCatalog.in(root);
+        TimeTableCatalog.Lease inFlight = catalog.lease(MONDAY);
+        FileTimeTable old = inFlight.timeTable();
+
+        // Nouvel instantané couvrant tous les jours de l'ancien, qui ne sert donc plus aucune date
+        Path replacement = snapshot("timetable-b", 0, 6);
+        assertTrue(catalog.reload());
+        assertEquals(List.of(replacement), catalog.directories());
+        try (TimeTableCatalog.Lease lease = catalog.lease(MONDAY)) {
+            assertEquals(replacement, lease.directory());
+            assertNotSame(old, lease.timeTable());
+        }
+
+        assertTrue(catalog.isOpen(old));
+        inFlight.close();
+        inFlight.close();
+        assertFalse(catalog.isOpen(old));
+    }
+
+    @Test
+    void closedCatalogRefusesLeases() throws IOException {
+        snapshot("timetable-05-12", 0, 6);
+        TimeTableCatalog catalog = TimeTableCatalog.in(root);
+        TimeTableCatalog.Lease lease = catalog.lease(MONDAY);
+        catalog.close();
+        assertThrows(NoSuchElementException.class, () -> catalog.lease(MONDAY));
+        assertThrows(IllegalStateException.class, catalog::reload);
+        assertTrue(catalog.isOpen(lease.timeTable()));
+        lease.close();
+        assertFalse(catalog.isOpen(lease.timeTable()));
+    }
+
+    @Test
+    void singleSnapshotDirectoryIsItsOwnCatalog() throws IOException {
+        Path only = snapshot("timetable-05-12", 0, 1);
+        TimeTableCatalog catalog = TimeTableCatalog.in(only);
+        assertEquals(List.of(only), catalog.directories());
+    }
+}
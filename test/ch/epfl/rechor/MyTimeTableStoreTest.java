@@ -0,0 +1,92 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.timetable.mapped.FileTimeTable;
+import ch.epfl.rechor.timetable.mapped.TimeTableCatalog;
+import ch.epfl.rechor.timetable.mapped.TimeTableStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyTimeTableStoreTest {
+    private static final LocalDate MONDAY = LocalDate.of(2025, Month.MAY, 12);
+    @TempDir
+    Path root;
+
+    /** Crée un instantané dont les jours donnés, à partir du lundi, ont tous le même contenu. */
+    private Path snapshot(String name, int firstDay, int lastDay) throws IOException {
+        Path dir = Files.createDirectory(root.resolve(name));
+        Files.writeString(dir.resolve("strings.txt"), "Lausanne\nRenens VD\n");
+        for (String f : List.of("stations.bin", "station-aliases.bin", "platforms.bin", "routes.bin", "transfers.bin"))
+            Files.createFile(dir.resolve(f));
+        Files.write(dir.resolve("stop-index.bin"), new byte[]{1, 2, 3});
+        for (int d = firstDay; d <= lastDay; d++) {
+            Path day = Files.createDirectory(dir.resolve(MONDAY.plusDays(d).toString()));
+            // Une liaison (12 octets), son successeur (4 octets) et une course (4 octets)
+            Files.write(day.resolve("connections.bin"), new byte[]{0, 0, 0, 60, 0, 1, 0, 70, 0, 0, 0, 0});
+            Files.write(day.resolve("connections-succ.bin"), new byte[]{0, 0, 0, 0});
+            Files.write(day.resolve("trips.bin"), new byte[]{0, 0, 0, (byte) (d + 1)});
+        }
+        return dir;
+    }
+
+    private static void assertReadable(Path dir, LocalDate date) throws IOException {
+        FileTimeTable tt = FileTimeTable.in(dir);
+        assertEquals(List.of("Lausanne", "Renens VD"), tt.stringTable());
+        assertEquals(1, tt.connectionsFor(date).size());
+        assertEquals(1, tt.tripsFor(date).size());
+    }
+
+    @Test
+    void identicalFilesAreStoredOnceWithHardLinks() throws IOException {
+        Path a = snapshot("timetable-05-12", 0, 6);
+        Path b = snapshot("timetable-05-19", 3, 9);
+
+        TimeTableStore.Report report = TimeTableStore.deduplicate(root, true);
+        // 6 fichiers communs + 3 fichiers par jour, stop-index.bin exclu
+        assertEquals(2 * 6 + 14 * 3, report.files());
+        // Un seul contenu pour strings.txt, les fichiers vides, les liaisons, les successeurs,
+        // et un contenu de courses par jour différent
+        assertEquals(4 + 10, report.uniqueFiles());
+        assertTrue(Files.isSameFile(a.resolve("strings.txt"), b.resolve("strings.txt")));
+        assertTrue(Files.isSameFile(a.resolve("2025-05-15/trips.bin"), b.resolve("2025-05-15/trips.bin")));
+        assertFalse(Files.isSameFile(a.resolve("stop-index.bin"), b.resolve("stop-index.bin")));
+
+        assertReadable(b, MONDAY.plusDays(4));
+        assertEquals(0, TimeTableStore.deduplicate(root, true).linkedFiles());
+    }
+
+    @Test
+    void refsAreResolvedByReaders() throws IOException {
+        Path a = snapshot("timetable-05-12", 0, 6);
+        Path b = snapshot("timetable-05-19", 3, 9);
+
+        TimeTableStore.Report report = TimeTableStore.deduplicate(root, false);
+        assertEquals(report.files(), report.linkedFiles());
+        assertFalse(Files.exists(a.resolve("strings.txt")));
+        assertTrue(Files.exists(a.resolve("strings.txt" + TimeTableStore.REF_SUFFIX)));
+        assertEquals(TimeTableStore.resolve(a.resolve("2025-05-16/connections.bin")),
+                TimeTableStore.resolve(b.resolve("2025-05-20/connections.bin")));
+        assertTrue(TimeTableStore.resolve(a.resolve("strings.txt"))
+                .startsWith(root.resolve(TimeTableStore.STORE_DIRECTORY)));
+
+        assertReadable(a, MONDAY);
+        assertEquals(0, TimeTableStore.deduplicate(root, false).linkedFiles());
+        try (TimeTableCatalog catalog = TimeTableCatalog.in(root)) {
+            assertEquals(List.of(a, b), catalog.directories());
+        }
+    }
+
+    @Test
+    void resolveLeavesMissingFilesUnchanged() {
+        Path missing = root.resolve("absent.bin");
+        assertEquals(missing, TimeTableStore.resolve(missing));
+    }
+}
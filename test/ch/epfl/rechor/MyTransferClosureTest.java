@@ -0,0 +1,103 @@
+package ch.epfl.rechor;
+
+import ch.epfl.rechor.app.TransferClosure;
+import ch.epfl.rechor.timetable.Stations;
+import ch.epfl.rechor.timetable.mapped.BufferedTransfers;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyTransferClosureTest {
+    // Environ 400 m de longitude à cette latitude, soit 5 minutes de marche
+    private static final double STEP = 0.0052;
+    private static final double[] LONGITUDES = {6.6, 6.6 + STEP, 6.6 + 2 * STEP, 7.6};
+
+    private static final Stations STATIONS = new Stations() {
+        @Override
+        public String name(int id) {
+            return "Gare " + id;
+        }
+
+        @Override
+        public double longitude(int id) {
+            return LONGITUDES[id];
+        }
+
+        @Override
+        public double latitude(int id) {
+            return 46.5;
+        }
+
+        @Override
+        public int size() {
+            return LONGITUDES.length;
+        }
+    };
+
+    // Seul le changement 0 -> 1 (3 minutes) est fourni, en plus des changements dans chaque gare
+    private static BufferedTransfers feed() {
+        int[][] transfers = {{0, 0, 2}, {1, 1, 2}, {0, 1, 3}, {2, 2, 2}, {3, 3, 2}};
+        ByteBuffer buffer = ByteBuffer.allocate(transfers.length * 5);
+        for (int[] t : transfers)
+            buffer.putShort((short) t[0]).putShort((short) t[1]).put((byte) t[2]);
+        return new BufferedTransfers(buffer.flip().slice());
+    }
+
+    @Test
+    void closureChainsFeedTransfersAndWalks() {
+        BufferedTransfers closed = new BufferedTransfers(TransferClosure.closure(STATIONS, feed(), 10));
+        assertEquals(3, closed.minutesBetween(0, 1));
+        assertEquals(5, closed.minutesBetween(1, 0));
+        assertEquals(5, closed.minutesBetween(1, 2));
+        assertEquals(8, closed.minutesBetween(0, 2));
+        assertEquals(10, closed.minutesBetween(2, 0));
+        assertEquals(2, closed.minutesBetween(1, 1));
+        assertThrows(NoSuchElementException.class, () -> closed.minutesBetween(0, 3));
+        assertThrows(NoSuchElementException.class, () -> closed.minutesBetween(3, 2));
+    }
+
+    @Test
+    void closureAcceptsStationsWithoutFeedTransfers() {
+        // Les gares 2 et 3 sont d'index supérieur à ceux de tous les changements fournis
+        ByteBuffer buffer = ByteBuffer.allocate(3 * 5);
+        buffer.putShort((short) 0).putShort((short) 0).put((byte) 2);
+        buffer.putShort((short) 1).putShort((short) 1).put((byte) 2);
+        buffer.putShort((short) 0).putShort((short) 1).put((byte) 3);
+        BufferedTransfers feed = new BufferedTransfers(buffer.flip().slice());
+        BufferedTransfers closed = new BufferedTransfers(TransferClosure.closure(STATIONS, feed, 10));
+        assertEquals(5, closed.minutesBetween(1, 2));
+        assertEquals(5, closed.minutesBetween(2, 1));
+        assertEquals(8, closed.minutesBetween(0, 2));
+    }
+
+    @Test
+    void closureRespectsMaximumDuration() {
+        BufferedTransfers closed = new BufferedTransfers(TransferClosure.closure(STATIONS, feed(), 7));
+        assertEquals(3, closed.minutesBetween(0, 1));
+        assertEquals(5, closed.minutesBetween(2, 1));
+        assertThrows(NoSuchElementException.class, () -> closed.minutesBetween(0, 2));
+        assertThrows(NoSuchElementException.class, () -> closed.minutesBetween(2, 0));
+    }
+
+    @Test
+    void closureIsGroupedByArrival() {
+        BufferedTransfers closed = new BufferedTransfers(TransferClosure.closure(STATIONS, feed(), 10));
+        int total = 0;
+        for (int arr = 0; arr < STATIONS.size(); arr++) {
+            int r = closed.arrivingAt(arr);
+            assertEquals(total, PackedRange.startInclusive(r));
+            total = PackedRange.endExclusive(r);
+        }
+        assertEquals(closed.size(), total);
+    }
+
+    @Test
+    void closureThrowsOnInvalidDuration() {
+        assertThrows(IllegalArgumentException.class, () -> TransferClosure.closure(STATIONS, feed(), -1));
+        assertThrows(IllegalArgumentException.class, () -> TransferClosure.closure(STATIONS, feed(), 256));
+    }
+}